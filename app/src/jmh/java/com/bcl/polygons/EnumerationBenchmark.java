@@ -0,0 +1,53 @@
+package com.bcl.polygons;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+// End-to-end enumeration on a single thread, so engines can be compared without
+// the thread pool in the way
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EnumerationBenchmark {
+
+	@Param({ "5", "7" })
+	public int size;
+
+	@Param({ "1", "3" })
+	public int innerRemovals;
+
+	@Param({ "3", "4" })
+	public int vertices;
+
+	@Param({ "CANONICAL", "ALL_ORDERINGS" })
+	public Mode mode;
+
+	private PolygonEnumerator enumerator;
+
+	@Setup
+	public void setUp() {
+		enumerator = new PolygonEnumerator(Board.square(size, innerRemovals), vertices, mode);
+	}
+
+	@Benchmark
+	public Set<Polygon> enumerate() {
+		return enumerator.enumerateSerial();
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.bcl.polygons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+// Polygon caches what it computes, so each benchmark builds a new polygon from
+// the vertices of one found by the search; construct measures that on its own,
+// to subtract from the rest
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonBenchmark {
+
+	@Param({ "3", "4", "5" })
+	public int vertices;
+
+	private List<List<Point>> polygonVertices;
+	private List<List<Point>> reversedVertices;
+	private int index = 0;
+
+	@Setup
+	public void setUp() {
+		final Board board = Board.square(5, 1);
+		final Set<Polygon> polygons = new PolygonEnumerator(board, vertices, Mode.CANONICAL).enumerate();
+		polygonVertices = new ArrayList<>();
+		reversedVertices = new ArrayList<>();
+		for (final Polygon polygon : polygons) {
+			final List<Point> theVertices = polygon.getVertices();
+			polygonVertices.add(theVertices);
+			final List<Point> reversed = new ArrayList<>(theVertices);
+			Collections.reverse(reversed);
+			reversedVertices.add(reversed);
+		}
+	}
+
+	private int next() {
+		index = (index + 1) % polygonVertices.size();
+		return index;
+	}
+
+	@Benchmark
+	public Polygon construct() {
+		return new Polygon(polygonVertices.get(next()));
+	}
+
+	@Benchmark
+	public boolean isValid() {
+		return new Polygon(polygonVertices.get(next())).isValid();
+	}
+
+	@Benchmark
+	public int getTwiceArea() {
+		return new Polygon(polygonVertices.get(next())).getTwiceArea();
+	}
+
+	@Benchmark
+	public int hashCodeOf() {
+		return new Polygon(polygonVertices.get(next())).hashCode();
+	}
+
+	// equal polygons, so the comparison can't stop early
+	@Benchmark
+	public boolean equalsReversed() {
+		final int i = next();
+		return new Polygon(polygonVertices.get(i)).equals(new Polygon(reversedVertices.get(i)));
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.bcl.polygons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The side checks the search makes, over random pairs of sides between points of
+// the default 7x7 board
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SideBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	private final Side[] sides1 = new Side[PAIRS];
+	private final Side[] sides2 = new Side[PAIRS];
+	private int index = 0;
+
+	@Setup
+	public void setUp() {
+		final List<Point> points = new ArrayList<>(Board.square(7, 3).getPoints());
+		final Random random = new Random(1);
+		for (int i = 0; i < PAIRS; i++) {
+			sides1[i] = new Side(points.get(random.nextInt(points.size())), points.get(random.nextInt(points.size())));
+			sides2[i] = new Side(points.get(random.nextInt(points.size())), points.get(random.nextInt(points.size())));
+		}
+	}
+
+	private int next() {
+		index = index + 1 & PAIRS - 1;
+		return index;
+	}
+
+	@Benchmark
+	public boolean intersects() {
+		final int i = next();
+		return sides1[i].intersects(sides2[i]);
+	}
+
+	@Benchmark
+	public boolean projectionContains() {
+		final int i = next();
+		return sides1[i].projectionContains(sides2[i].getStart());
+	}
+
+}
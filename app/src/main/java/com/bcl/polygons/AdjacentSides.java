@@ -22,8 +22,8 @@ public final class AdjacentSides {
 	}
 
 	public boolean isRightAngle() {
-		return side1.getDirection().getRow() * side2.getDirection().getRow()
-				+ side1.getDirection().getColumn() * side2.getDirection().getColumn() == 0;
+		return side1.getLattice().isRightAngle(side1.getDirection().getRow(), side1.getDirection().getColumn(),
+				side2.getDirection().getRow(), side2.getDirection().getColumn());
 
 	}
 
@@ -0,0 +1,391 @@
+package com.bcl.polygons;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.bcl.polygons.Settings.Format;
+
+// Headless entry point: enumerates the polygons for the settings given on the
+// command line and writes them, with timings, to standard output or a file.
+// Binary result files get just the timings on standard output. For a closer
+// look at a run, see SearchStats and SearchPhaseEvent.
+public class BatchMain {
+
+	// records held in memory at a time when merging, unless --run-size says
+	private static final int DEFAULT_MERGE_RUN_SIZE = 1 << 20;
+
+	public static void main(final String... args) {
+		final Settings settings;
+		try {
+			settings = Settings.parse(Arrays.asList(args));
+		} catch (final IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(Settings.USAGE);
+			System.exit(2);
+			return;
+		}
+
+		try (PrintWriter out = openOutput(settings)) {
+			run(settings, out);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted", e);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static PrintWriter openOutput(final Settings settings) throws IOException {
+		if (settings.getOutput() == null || settings.getFormat() == Format.BINARY) {
+			// don't close standard output along with the writer
+			return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+				@Override
+				public void close() {
+					flush();
+				}
+			};
+		}
+		return new PrintWriter(Files.newBufferedWriter(settings.getOutput(), StandardCharsets.UTF_8));
+	}
+
+	static void run(final Settings settings, final PrintWriter out) throws IOException, InterruptedException {
+		if (settings.getShards() > 0) {
+			searchShards(settings, out);
+			return;
+		} else if (settings.getMerge() != null) {
+			out.printf("# merge of %,d shards, run size %,d%n", settings.getMerge().size(), runSize(settings));
+			merge(settings, settings.getMerge(), out);
+			return;
+		} else if (settings.getRunSize() > 0) {
+			stream(settings, out);
+			return;
+		} else if (settings.getFormat() == Format.HISTOGRAM) {
+			count(settings, out);
+			return;
+		}
+
+		final PolygonEnumerator enumerator = settings.getEnumerator();
+
+		final Board board = enumerator.getBoard();
+		final Set<Polygon> found = ConcurrentHashMap.newKeySet();
+		final long enumerateStart = System.currentTimeMillis();
+		visit(settings, enumerator, (vertices, count) -> found.add(board.getPolygon(vertices, count)));
+		final long enumerateEnd = System.currentTimeMillis();
+
+		// sorted separately for each number of vertices, fewest first
+		final PolygonOrder order = new PolygonOrder(board);
+		final Map<Integer, List<Polygon>> byVertices = new TreeMap<>();
+		found.stream().collect(Collectors.groupingBy(polygon -> polygon.getVertices().size()))
+				.forEach((count, group) -> byVertices.put(count, order.sort(group)));
+		final List<Polygon> polygons = new ArrayList<>();
+		byVertices.values().forEach(polygons::addAll);
+		final long sortEnd = System.currentTimeMillis();
+
+		out.printf("# %s%n", settings);
+		out.printf("# enumeration took %,d ms%n", enumerateEnd - enumerateStart);
+		out.printf("# sorting took %,d ms%n", sortEnd - enumerateEnd);
+		out.printf("# %,d polygons found%n", polygons.size());
+		if (settings.getContactSheet() != null) {
+			final int pages = new ContactSheet(settings.getBoard(), settings.getTileSize()).writePages(polygons,
+					settings.getContactSheet());
+			out.printf("# drew %,d contact sheet pages in %,d ms%n", pages, System.currentTimeMillis() - sortEnd);
+		}
+		if (settings.getFormat() == Format.BINARY) {
+			try (PolygonFileWriter writer = new PolygonFileWriter(settings.getOutput(), settings.getBoard(),
+					settings.getVertices())) {
+				for (final Polygon polygon : polygons) {
+					writer.write(polygon);
+				}
+			}
+			out.printf("# wrote %s%n", settings.getOutput());
+			return;
+		}
+		out.println("# twice area\tright angles\tdistinct sides\tvertices");
+		for (final Map.Entry<Integer, List<Polygon>> group : byVertices.entrySet()) {
+			if (settings.isSweep()) {
+				out.printf("# %d vertices: %,d polygons%n", group.getKey(), group.getValue().size());
+			}
+			for (final Polygon polygon : group.getValue()) {
+				out.printf("%d\t%d\t%d\t%s%n", polygon.getTwiceArea(), polygon.countRightAngles(),
+						polygon.countDistinctSides(), polygon);
+			}
+		}
+	}
+
+	// runs the search on its own pool; with a checkpoint, only the subtrees it hasn't
+	// finished are searched, and it is saved again at the end
+	private static void visit(final Settings settings, final PolygonEnumerator enumerator,
+			final PolygonVisitor visitor) throws IOException {
+		final SearchCheckpoint checkpoint = settings.getCheckpoint() == null ? null
+				: SearchCheckpoint.open(settings.getCheckpoint(), enumerator,
+						settings.getCheckpointInterval() * 1000L);
+		final ForkJoinPool pool = new ForkJoinPool(settings.getThreads());
+		try {
+			if (checkpoint == null) {
+				enumerator.visit(pool, visitor);
+			} else {
+				enumerator.visit(pool, visitor, new SearchProgress(), checkpoint);
+				checkpoint.save();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// only the number of polygons of each twice area, right angles and distinct
+	// sides are kept, so no Polygon is ever made and memory use doesn't depend on
+	// the number of polygons
+	private static void count(final Settings settings, final PrintWriter out) throws IOException {
+		final PolygonEnumerator enumerator = settings.getEnumerator();
+		// by number of vertices
+		final PolygonHistogram[] histograms = new PolygonHistogram[enumerator.getVertices() + 1];
+		for (int count = enumerator.getMinVertices(); count <= enumerator.getVertices(); count++) {
+			histograms[count] = new PolygonHistogram(enumerator.getBoard(), count);
+		}
+		final long enumerateStart = System.currentTimeMillis();
+		visit(settings, enumerator, (vertices, count) -> histograms[count].visit(vertices, count));
+		final long enumerateEnd = System.currentTimeMillis();
+		long total = 0;
+		for (int count = enumerator.getMinVertices(); count <= enumerator.getVertices(); count++) {
+			total += histograms[count].getTotal();
+		}
+
+		out.printf("# %s%n", settings);
+		out.printf("# enumeration took %,d ms%n", enumerateEnd - enumerateStart);
+		out.printf("# %,d polygons found%n", total);
+		out.println("# twice area\tright angles\tdistinct sides\tpolygons");
+		for (int count = enumerator.getMinVertices(); count <= enumerator.getVertices(); count++) {
+			if (settings.isSweep()) {
+				out.printf("# %d vertices: %,d polygons%n", count, histograms[count].getTotal());
+			}
+			for (final PolygonHistogram.Bucket bucket : histograms[count].getBuckets()) {
+				out.println(bucket);
+			}
+		}
+	}
+
+	// each polygon found goes straight to the external sorter as a compact record,
+	// so memory use depends on the run size rather than the number of polygons
+	private static void stream(final Settings settings, final PrintWriter out) throws IOException {
+		final PolygonEnumerator enumerator = settings.getEnumerator();
+		final Board board = enumerator.getBoard();
+		if (!PolygonKey.fits(board.getPointCount(), enumerator.getVertices())) {
+			throw new IllegalArgumentException("the board is too large to stream results");
+		}
+
+		try (ExternalSorter sorter = new ExternalSorter(settings.getRunSize())) {
+			final AtomicLong count = new AtomicLong();
+			final long enumerateStart = System.currentTimeMillis();
+			visit(settings, enumerator, (vertices, vertexCount) -> {
+				sorter.add(PolygonRecord.of(board, vertices, vertexCount));
+				count.incrementAndGet();
+			});
+			final long enumerateEnd = System.currentTimeMillis();
+
+			out.printf("# %s, run size %,d%n", settings, settings.getRunSize());
+			out.printf("# enumeration took %,d ms%n", enumerateEnd - enumerateStart);
+			out.printf("# %,d polygons found%n", count.get());
+			writeSorted(settings, board, enumerator.getVertices(), sorter, out);
+			out.printf("# sorting and writing took %,d ms%n", System.currentTimeMillis() - enumerateEnd);
+		}
+	}
+
+	// writes the sorter's records to the output, each polygon only once, returning
+	// the number written
+	private static long writeSorted(final Settings settings, final Board board, final int vertices,
+			final ExternalSorter sorter, final PrintWriter out) throws IOException {
+		final SearchPhaseEvent event = new SearchPhaseEvent("sort", board, vertices);
+		try {
+			return writeRecords(settings, board, vertices, sorter, out);
+		} finally {
+			event.commit();
+		}
+	}
+
+	private static long writeRecords(final Settings settings, final Board board, final int vertices,
+			final ExternalSorter sorter, final PrintWriter out) throws IOException {
+		if (settings.getFormat() == Format.BINARY) {
+			final long written;
+			try (PolygonFileWriter writer = new PolygonFileWriter(settings.getOutput(), board, vertices)) {
+				written = forEachDistinct(sorter, record -> {
+					try {
+						writer.write(record);
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+			out.printf("# wrote %s%n", settings.getOutput());
+			return written;
+		}
+		out.println("# twice area\tright angles\tdistinct sides\tvertices");
+		return forEachDistinct(sorter, record -> out.printf("%d\t%d\t%d\t%s%n", record.getTwiceArea(),
+				record.getRightAngles(), record.getDistinctSides(), record.toPolygon(board, vertices)));
+	}
+
+	// the sorted records, skipping any that repeat the one before
+	private static long forEachDistinct(final ExternalSorter sorter, final Consumer<PolygonRecord> consumer)
+			throws IOException {
+		final AtomicLong count = new AtomicLong();
+		final long[] previousKey = new long[1];
+		sorter.forEachSorted(record -> {
+			if (count.get() == 0 || record.getKey() != previousKey[0]) {
+				previousKey[0] = record.getKey();
+				count.incrementAndGet();
+				consumer.accept(record);
+			}
+		});
+		return count.get();
+	}
+
+	private static int runSize(final Settings settings) {
+		return settings.getRunSize() > 0 ? settings.getRunSize() : DEFAULT_MERGE_RUN_SIZE;
+	}
+
+	// the JVM arguments of this process that the shards' processes are given too:
+	// sizes, -XX options and system properties, but not agents, debugging,
+	// recordings, logs or anything else that would open the same port or write
+	// the same file in every process
+	static List<String> shardJvmArguments(final List<String> arguments) {
+		final List<String> passed = new ArrayList<>();
+		for (final String argument : arguments) {
+			final boolean needed = argument.startsWith("-Xmx") || argument.startsWith("-Xms")
+					|| argument.startsWith("-Xss") || argument.startsWith("-XX:") || argument.startsWith("-D")
+					|| argument.equals("-ea") || argument.equals("-da") || argument.equals("--enable-preview");
+			final boolean shared = argument.startsWith("-XX:StartFlightRecording")
+					|| argument.startsWith("-XX:FlightRecorderOptions") || argument.startsWith("-XX:HeapDumpPath")
+					|| argument.startsWith("-XX:ErrorFile") || argument.startsWith("-XX:LogFile")
+					|| argument.startsWith("-XX:+LogVMOutput") || argument.startsWith("-Dcom.sun.management.");
+			if (needed && !shared) {
+				passed.add(argument);
+			}
+		}
+		return passed;
+	}
+
+	// each shard is searched by another run of this class, in a process of its own,
+	// writing binary results to a temporary directory, and then the results are
+	// merged. Each process's output is passed on once it is done.
+	private static void searchShards(final Settings settings, final PrintWriter out)
+			throws IOException, InterruptedException {
+		final Path directory = Files.createTempDirectory("shards");
+		try {
+			final List<String> java = new ArrayList<>();
+			java.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+			java.addAll(shardJvmArguments(ManagementFactory.getRuntimeMXBean().getInputArguments()));
+			java.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), BatchMain.class.getName()));
+
+			final long start = System.currentTimeMillis();
+			final List<Path> files = new ArrayList<>();
+			final List<Path> logs = new ArrayList<>();
+			final List<Process> processes = new ArrayList<>();
+			for (int i = 0; i < settings.getShards(); i++) {
+				final Shard shard = new Shard(i, settings.getShards());
+				final Path file = directory.resolve(String.format("shard-%d-of-%d.bin", i + 1, shard.getCount()));
+				final Path log = directory.resolve(String.format("shard-%d-of-%d.txt", i + 1, shard.getCount()));
+				final List<String> command = new ArrayList<>(java);
+				command.addAll(settings.forShard(shard, file));
+				processes.add(new ProcessBuilder(command).redirectOutput(log.toFile())
+						.redirectError(ProcessBuilder.Redirect.INHERIT).start());
+				files.add(file);
+				logs.add(log);
+			}
+
+			out.printf("# %s, run size %,d%n", settings, runSize(settings));
+			try {
+				for (int i = 0; i < processes.size(); i++) {
+					final int exitCode = processes.get(i).waitFor();
+					if (exitCode != 0) {
+						throw new IOException(String.format("shard %d/%d failed with exit code %d", i + 1,
+								processes.size(), exitCode));
+					}
+					for (final String line : Files.readAllLines(logs.get(i), StandardCharsets.UTF_8)) {
+						out.printf("# shard %d/%d: %s%n", i + 1, processes.size(), line.replaceFirst("^# ", ""));
+					}
+				}
+			} finally {
+				for (final Process process : processes) {
+					process.destroy();
+				}
+			}
+			out.printf("# searching the shards took %,d ms%n", System.currentTimeMillis() - start);
+			merge(settings, files, out);
+		} finally {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	// the results of the shards of a search, in any order, are sorted together, and
+	// the polygons that more than one shard found - which only the search over all
+	// orderings does - are written once
+	private static void merge(final Settings settings, final List<Path> files, final PrintWriter out)
+			throws IOException {
+		final long start = System.currentTimeMillis();
+		final SearchPhaseEvent event = new SearchPhaseEvent("merge", null, 0);
+		Board board = null;
+		int vertices = 0;
+		long read = 0;
+		try (ExternalSorter sorter = new ExternalSorter(runSize(settings))) {
+			for (final Path file : files) {
+				try (PolygonFileReader reader = new PolygonFileReader(file)) {
+					if (board == null) {
+						board = reader.getBoard();
+						vertices = reader.getVertices();
+						if (!PolygonKey.fits(board.getPointCount(), vertices)) {
+							throw new IllegalArgumentException("the board is too large to merge results");
+						}
+					} else if (!reader.getBoard().equals(board) || reader.getVertices() != vertices) {
+						throw new IOException(file + " is the result of a different search");
+					}
+
+					final int[] polygonVertices = new int[vertices];
+					final int bitsPerVertex = PolygonKey.bitsPerVertex(board.getPointCount());
+					for (long i = 0; i < reader.size(); i++) {
+						reader.getVertices(i, polygonVertices);
+						sorter.add(new PolygonRecord(PolygonKey.pack(polygonVertices, vertices, bitsPerVertex),
+								reader.getTwiceArea(i), reader.getRightAngles(i), reader.getDistinctSides(i)));
+					}
+					read += reader.size();
+				}
+			}
+			if (board == null) {
+				throw new IllegalArgumentException("nothing to merge");
+			}
+
+			out.printf("# %s, %d vertices: read %,d polygons from %,d shards%n", board, vertices, read, files.size());
+			event.board = board.toString();
+			event.vertices = vertices;
+			final long written = writeSorted(settings, board, vertices, sorter, out);
+			out.printf("# %,d polygons found%n", written);
+			out.printf("# merging took %,d ms%n", System.currentTimeMillis() - start);
+		} finally {
+			event.commit();
+		}
+	}
+
+}
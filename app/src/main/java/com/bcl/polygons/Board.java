@@ -0,0 +1,335 @@
+package com.bcl.polygons;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// The points of a lattice that polygons are made from, given by a mask over the
+// lattice's rows and columns. The points are numbered densely in row then column
+// order, and the symmetries of the board are worked out up front as
+// permutations of those numbers.
+public final class Board {
+
+	private static final char POINT = 'o';
+	private static final char GAP = '.';
+
+	private final Lattice lattice;
+	private final int rows;
+	private final int columns;
+	private final String description;
+	// the mask as text, see toPattern
+	private final String pattern;
+	private final List<Point> pointList;
+	private final int[] indexByCell;
+	// the side between each ordered pair of points, by from * point count + to,
+	// created when first asked for
+	private final Side[] sides;
+	private final List<Symmetry> symmetries;
+	private final Symmetry rotation;
+	private ConflictMatrix conflicts = null;
+
+	private Board(final Lattice lattice, final boolean[][] mask, final String description) {
+		this.lattice = lattice;
+		this.rows = mask.length;
+		this.columns = Arrays.stream(mask).mapToInt(row -> row.length).max().orElse(0);
+		this.description = description;
+
+		final List<Point> thePoints = new ArrayList<>();
+		this.indexByCell = new int[rows * columns];
+		Arrays.fill(indexByCell, -1);
+		final StringBuilder thePattern = new StringBuilder(lattice.name().toLowerCase());
+		for (int r = 0; r < rows; r++) {
+			thePattern.append('\n');
+			for (int c = 0; c < columns; c++) {
+				final boolean masked = c < mask[r].length && mask[r][c];
+				if (masked && !lattice.contains(r, c)) {
+					throw new IllegalArgumentException(
+							String.format("(r=%d,c=%d) is not a point of the %s lattice", r, c, lattice));
+				}
+				if (masked) {
+					indexByCell[r * columns + c] = thePoints.size();
+					thePoints.add(new Point(r, c));
+				}
+				thePattern.append(masked ? POINT : GAP);
+			}
+		}
+		if (thePoints.isEmpty()) {
+			throw new IllegalArgumentException("a board needs at least one point");
+		}
+		this.pattern = thePattern.toString();
+		this.pointList = Collections.unmodifiableList(thePoints);
+		this.sides = new Side[pointList.size() * pointList.size()];
+
+		final List<Symmetry> theSymmetries = new ArrayList<>();
+		Symmetry theRotation = null;
+		for (final Lattice.Transform transform : lattice.getTransforms()) {
+			final int[] permutation = permutation(transform);
+			if (permutation != null) {
+				final Symmetry symmetry = new Symmetry(this, transform.name, permutation);
+				theSymmetries.add(symmetry);
+				// the transforms start with the identity, then the rotations in order of
+				// angle
+				if (transform.rotation && theRotation == null && theSymmetries.size() > 1) {
+					theRotation = symmetry;
+				}
+			}
+		}
+		this.symmetries = Collections.unmodifiableList(theSymmetries);
+		this.rotation = theRotation;
+	}
+
+	// the transform as a permutation of the point indices, moved so the points
+	// keep the same bounding box, or null if that doesn't map the board onto
+	// itself
+	private int[] permutation(final Lattice.Transform transform) {
+		final int count = pointList.size();
+		final int divisor = lattice.getDivisor();
+		final int[] newRows = new int[count];
+		final int[] newColumns = new int[count];
+		int minRow = Integer.MAX_VALUE;
+		int minColumn = Integer.MAX_VALUE;
+		int minNewRow = Integer.MAX_VALUE;
+		int minNewColumn = Integer.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			final int r = pointList.get(i).getRow();
+			final int c = pointList.get(i).getColumn();
+			newRows[i] = (transform.rowRow * r + transform.rowColumn * c) / divisor;
+			newColumns[i] = (transform.columnRow * r + transform.columnColumn * c) / divisor;
+			minRow = Math.min(minRow, r);
+			minColumn = Math.min(minColumn, c);
+			minNewRow = Math.min(minNewRow, newRows[i]);
+			minNewColumn = Math.min(minNewColumn, newColumns[i]);
+		}
+
+		final int[] permutation = new int[count];
+		for (int i = 0; i < count; i++) {
+			final Point image = getPoint(newRows[i] - minNewRow + minRow, newColumns[i] - minNewColumn + minColumn);
+			if (image == null) {
+				return null;
+			}
+			permutation[i] = indexOf(image);
+		}
+		return permutation;
+	}
+
+	// a square lattice with a square of rows and columns removed from the middle
+	public static Board square(final int size, final int innerRemovals) {
+		final boolean[][] mask = new boolean[size][size];
+		final int boundary = (size - innerRemovals) / 2;
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				mask[r][c] = r < boundary || size - 1 - r < boundary || c < boundary || size - 1 - c < boundary;
+			}
+		}
+		return new Board(Lattice.SQUARE, mask,
+				String.format("%dx%d board, %d inner removals", size, size, innerRemovals));
+	}
+
+	public static Board rectangle(final int rows, final int columns) {
+		final boolean[][] mask = new boolean[rows][columns];
+		for (final boolean[] row : mask) {
+			Arrays.fill(row, true);
+		}
+		return new Board(Lattice.SQUARE, mask, String.format("%dx%d board", rows, columns));
+	}
+
+	// a triangular lattice in a triangle with the given number of points along
+	// each side, pointing down
+	public static Board triangle(final int side) {
+		final boolean[][] mask = new boolean[side][2 * side - 1];
+		for (int r = 0; r < side; r++) {
+			for (int c = r; c < 2 * side - 1 - r; c += 2) {
+				mask[r][c] = true;
+			}
+		}
+		return new Board(Lattice.TRIANGULAR, mask, String.format("triangular board, %d points a side", side));
+	}
+
+	// a board from its pattern, as toPattern: optionally the lattice, then a line
+	// per row with o for each point and anything else for a gap
+	public static Board parse(final String pattern) {
+		final List<String> lines = new ArrayList<>(Arrays.asList(pattern.split("\r?\n")));
+		Lattice lattice = Lattice.SQUARE;
+		if (!lines.isEmpty()) {
+			for (final Lattice candidate : Lattice.values()) {
+				if (lines.get(0).trim().equalsIgnoreCase(candidate.name())) {
+					lattice = candidate;
+					lines.remove(0);
+					break;
+				}
+			}
+		}
+
+		final boolean[][] mask = new boolean[lines.size()][];
+		int count = 0;
+		for (int r = 0; r < mask.length; r++) {
+			final String line = lines.get(r);
+			mask[r] = new boolean[line.length()];
+			for (int c = 0; c < line.length(); c++) {
+				mask[r][c] = line.charAt(c) == POINT;
+				count += mask[r][c] ? 1 : 0;
+			}
+		}
+		final int columns = Arrays.stream(mask).mapToInt(row -> row.length).max().orElse(0);
+		return new Board(lattice, mask, String.format("%dx%d %s board of %d points", mask.length, columns,
+				lattice.name().toLowerCase(), count));
+	}
+
+	// the lattice, then a line per row with o for each point and . for each gap
+	public String toPattern() {
+		return pattern;
+	}
+
+	// a short name for the board's shape, fit for a file name
+	public String getKey() {
+		final CRC32 crc = new CRC32();
+		crc.update(pattern.getBytes(StandardCharsets.UTF_8));
+		return String.format("%s-%dx%d-%08x", lattice.name().toLowerCase(), rows, columns, crc.getValue());
+	}
+
+	public Lattice getLattice() {
+		return lattice;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	// the extent of the points in the plane, see Lattice.getX and getY
+	public double getWidth() {
+		return pointList.stream().mapToDouble(lattice::getX).max().getAsDouble();
+	}
+
+	public double getHeight() {
+		return pointList.stream().mapToDouble(lattice::getY).max().getAsDouble();
+	}
+
+	public boolean isValidPoint(final Point point) {
+		return indexOf(point) >= 0;
+	}
+
+	// in index order, which is row then column order
+	public List<Point> getPoints() {
+		return pointList;
+	}
+
+	public int getPointCount() {
+		return pointList.size();
+	}
+
+	public Point getPoint(final int index) {
+		return pointList.get(index);
+	}
+
+	// the board's own instance of the point at the given row and column, or null if
+	// it is not on the board
+	public Point getPoint(final int row, final int column) {
+		final int index = indexOf(row, column);
+		return index < 0 ? null : pointList.get(index);
+	}
+
+	// the board's own instance of an equal point, so points can be shared, or the
+	// point itself if it is not on the board
+	public Point intern(final Point point) {
+		final Point interned = getPoint(point.getRow(), point.getColumn());
+		return interned == null ? point : interned;
+	}
+
+	// the one side from one point to another, with its direction and length already
+	// worked out
+	public Side getSide(final int from, final int to) {
+		final int index = from * pointList.size() + to;
+		// racy single-check, see Memo: a Side's final fields make it safe to publish
+		// this way, and at worst two equal sides are made
+		Side side = sides[index];
+		if (side == null) {
+			side = new Side(pointList.get(from), pointList.get(to), lattice);
+			side.getDirection();
+			side.length();
+			sides[index] = side;
+		}
+		return side;
+	}
+
+	// -1 if the point is not on the board
+	public int indexOf(final Point point) {
+		return indexOf(point.getRow(), point.getColumn());
+	}
+
+	private int indexOf(final int row, final int column) {
+		if (row < 0 || row >= rows || column < 0 || column >= columns) {
+			return -1;
+		}
+		return indexByCell[row * columns + column];
+	}
+
+	public Polygon getPolygon(final int[] vertices, final int count) {
+		final List<Point> polygonVertices = new ArrayList<>(count);
+		final List<Side> polygonSides = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			polygonVertices.add(getPoint(vertices[i]));
+			polygonSides.add(getSide(vertices[i], vertices[(i + 1) % count]));
+		}
+		return new Polygon(polygonVertices, polygonSides);
+	}
+
+	// a polygon sharing the board's points and sides, if its vertices are all on the
+	// board
+	public Polygon getPolygon(final List<Point> vertices) {
+		final int count = vertices.size();
+		final int[] indices = new int[count];
+		for (int i = 0; i < count; i++) {
+			indices[i] = indexOf(vertices.get(i));
+			if (indices[i] < 0) {
+				return new Polygon(vertices);
+			}
+		}
+		return getPolygon(indices, count);
+	}
+
+	// loaded or built when first asked for, or null if the board is too large for
+	// one
+	synchronized ConflictMatrix getConflicts() {
+		if (conflicts == null && ConflictMatrix.fits(this)) {
+			final SearchPhaseEvent event = new SearchPhaseEvent("point setup", this, 0);
+			conflicts = ConflictMatrix.load(this);
+			event.commit();
+		}
+		return conflicts;
+	}
+
+	// the first symmetry is always the identity
+	public List<Symmetry> getSymmetries() {
+		return symmetries;
+	}
+
+	// the rotation through the smallest angle that maps the board onto itself, or
+	// null if no rotation does
+	public Symmetry getRotation() {
+		return rotation;
+	}
+
+	@Override
+	public int hashCode() {
+		return pattern.hashCode();
+	}
+
+	// boards are equal when they have the same points on the same lattice
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof Board && pattern.equals(((Board) obj).pattern);
+	}
+
+	@Override
+	public String toString() {
+		return description;
+	}
+
+}
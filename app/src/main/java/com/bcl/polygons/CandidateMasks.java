@@ -0,0 +1,124 @@
+package com.bcl.polygons;
+
+import java.util.stream.IntStream;
+
+// Bitsets over a board's point indices for choosing the next vertex of the
+// search path, so that the search only tries points that pass the checks the
+// path will make of its newest side:
+// - for each previous and current vertex, the points that can come next without
+//   the sides into and out of the current vertex being parallel
+// - for each earlier side and current vertex, the points that can come next
+//   without the newest side running into the earlier side, which is a conflict
+//   as GeometryKernel.isConflict when the vertices must stay in order, or
+//   crossing or running along the same line as GeometryKernel.isViableExtension
+//   when any ordering will do
+// Both only apply to sides with no point in common, and to points not yet on
+// the path.
+final class CandidateMasks {
+
+	// boards with more points than this are searched without masks
+	static final long MAX_BITS = 1L << 30;
+
+	private final int points;
+	private final int words;
+	// by previous * points + current, words per entry
+	private final long[] turns;
+	// by (from * points + to) * points + current, for the earlier side from -> to
+	private final long[] clearOf;
+
+	private CandidateMasks(final int points, final long[] turns, final long[] clearOf) {
+		this.points = points;
+		this.words = wordsFor(points);
+		this.turns = turns;
+		this.clearOf = clearOf;
+	}
+
+	private static int wordsFor(final int points) {
+		return (points + Long.SIZE - 1) / Long.SIZE;
+	}
+
+	static boolean fits(final Board board) {
+		final long points = board.getPointCount();
+		return points * points * points * wordsFor(board.getPointCount()) * Long.SIZE <= MAX_BITS;
+	}
+
+	// the masks for a search that keeps its vertices in order if ordered, else for
+	// one where any ordering of the vertices will do
+	static CandidateMasks build(final Board board, final boolean ordered) {
+		final int points = board.getPointCount();
+		final int words = wordsFor(points);
+		final int[] rows = new int[points];
+		final int[] columns = new int[points];
+		for (int i = 0; i < points; i++) {
+			rows[i] = board.getPoint(i).getRow();
+			columns[i] = board.getPoint(i).getColumn();
+		}
+
+		final long[] turns = new long[points * points * words];
+		IntStream.range(0, points * points).parallel().forEach(pair -> {
+			final int previous = pair / points;
+			final int current = pair % points;
+			for (int next = 0; next < points; next++) {
+				if (next != previous && next != current && previous != current
+						&& !GeometryKernel.isParallel(rows[current] - rows[previous],
+								columns[current] - columns[previous], rows[next] - rows[current],
+								columns[next] - columns[current])) {
+					turns[pair * words + (next >>> 6)] |= 1L << next;
+				}
+			}
+		});
+
+		// each earlier side fills its own entries, which don't share words
+		final long[] clearOf = new long[points * points * points * words];
+		IntStream.range(0, points * points).parallel().forEach(side -> {
+			final int from = side / points;
+			final int to = side % points;
+			for (int current = 0; current < points; current++) {
+				final int entry = (side * points + current) * words;
+				for (int next = 0; next < points; next++) {
+					final boolean distinct = from != to && from != current && from != next && to != current
+							&& to != next && current != next;
+					if (!distinct || !blocks(rows, columns, from, to, current, next, ordered)) {
+						clearOf[entry + (next >>> 6)] |= 1L << next;
+					}
+				}
+			}
+		});
+		return new CandidateMasks(points, turns, clearOf);
+	}
+
+	private static boolean blocks(final int[] rows, final int[] columns, final int from, final int to,
+			final int current, final int next, final boolean ordered) {
+		if (ordered) {
+			return GeometryKernel.projectionContains(rows[from], columns[from], rows[to], columns[to], rows[current],
+					columns[current])
+					|| GeometryKernel.intersects(rows[from], columns[from], rows[to], columns[to], rows[current],
+							columns[current], rows[next], columns[next]);
+		}
+		return GeometryKernel.isCollinear(rows[from], columns[from], rows[to], columns[to], rows[current],
+				columns[current], rows[next], columns[next])
+				|| GeometryKernel.crosses(rows[from], columns[from], rows[to], columns[to], rows[current],
+						columns[current], rows[next], columns[next]);
+	}
+
+	// clears from the candidates the points that the path of the first size of the
+	// given vertices can't be extended to
+	void restrict(final int[] vertices, final int size, final long[] candidates) {
+		if (size < 2) {
+			return;
+		}
+		final int current = vertices[size - 1];
+		final int turn = (vertices[size - 2] * points + current) * words;
+		for (int w = 0; w < words; w++) {
+			candidates[w] &= turns[turn + w];
+		}
+		// the sides with no vertex in common with the newest side
+		for (int i = 0; i + 3 <= size; i++) {
+			final int entry = ((vertices[i] * points + vertices[i + 1]) * points + current) * words;
+			for (int w = 0; w < words; w++) {
+				candidates[w] &= clearOf[entry + w];
+			}
+		}
+	}
+
+}
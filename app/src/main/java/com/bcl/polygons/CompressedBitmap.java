@@ -0,0 +1,409 @@
+package com.bcl.polygons;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// An immutable set of non-negative ints, such as positions in a list of results,
+// compressed in the manner of Roaring bitmaps: the values are split into chunks
+// of 65,536 by their high 16 bits, and each chunk with any values in is held as
+// a sorted array of their low 16 bits while it has few values, or as a bitmap of
+// 1,024 longs once that is smaller. So sparse sets cost little more than a sorted
+// array, dense ones little more than a plain bitmap, and intersecting or joining
+// them goes a chunk at a time with whichever loop suits the two chunks.
+public final class CompressedBitmap {
+
+	private static final int CHUNK_BITS = 16;
+	private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / Long.SIZE;
+	// a chunk with more values than this is smaller as a bitmap
+	private static final int MAX_ARRAY_SIZE = 4096;
+
+	public static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Object[0], new int[0], 0);
+
+	// the high bits of the values in each chunk, ascending
+	private final char[] keys;
+	// each chunk, as a char[] of the low bits of its values, ascending, or as a
+	// long[] bitmap of them
+	private final Object[] chunks;
+	private final int[] cardinalities;
+	private final int size;
+
+	private CompressedBitmap(final char[] keys, final Object[] chunks, final int[] cardinalities, final int size) {
+		this.keys = keys;
+		this.chunks = chunks;
+		this.cardinalities = cardinalities;
+		this.size = size;
+	}
+
+	// the values from 0 to one less than the given count
+	public static CompressedBitmap range(final int count) {
+		final Builder builder = new Builder();
+		for (int i = 0; i < count; i++) {
+			builder.add(i);
+		}
+		return builder.build();
+	}
+
+	public static CompressedBitmap of(final int... values) {
+		final Builder builder = new Builder();
+		for (final int value : values) {
+			builder.add(value);
+		}
+		return builder.build();
+	}
+
+	// takes values in increasing order
+	public static final class Builder {
+		private final Chunks result = new Chunks(16);
+		private int last = -1;
+		private int key = -1;
+		private char[] array = new char[16];
+		private long[] bitmap = null;
+		private int count = 0;
+
+		public Builder add(final int value) {
+			if (value <= last) {
+				throw new IllegalArgumentException("values must be added in increasing order, but " + value
+						+ " came after " + last);
+			}
+			last = value;
+			if (value >>> CHUNK_BITS != key) {
+				flush();
+				key = value >>> CHUNK_BITS;
+			}
+
+			final char low = (char) value;
+			if (bitmap == null && count == MAX_ARRAY_SIZE) {
+				bitmap = toBitmap(array, count);
+			}
+			if (bitmap != null) {
+				bitmap[low >>> 6] |= 1L << low;
+			} else {
+				if (count == array.length) {
+					array = Arrays.copyOf(array, 2 * count);
+				}
+				array[count] = low;
+			}
+			count++;
+			return this;
+		}
+
+		private void flush() {
+			if (count > 0) {
+				result.add((char) key, bitmap != null ? bitmap : Arrays.copyOf(array, count), count);
+			}
+			bitmap = null;
+			count = 0;
+		}
+
+		public CompressedBitmap build() {
+			flush();
+			key = -1;
+			return result.build();
+		}
+	}
+
+	// the chunks of a bitmap being made
+	private static final class Chunks {
+		private char[] keys;
+		private Object[] chunks;
+		private int[] cardinalities;
+		private int count = 0;
+		private int size = 0;
+
+		Chunks(final int capacity) {
+			keys = new char[capacity];
+			chunks = new Object[capacity];
+			cardinalities = new int[capacity];
+		}
+
+		// an empty chunk is left out
+		void add(final char key, final Object chunk, final int cardinality) {
+			if (cardinality == 0) {
+				return;
+			}
+			if (count == keys.length) {
+				keys = Arrays.copyOf(keys, 2 * count);
+				chunks = Arrays.copyOf(chunks, 2 * count);
+				cardinalities = Arrays.copyOf(cardinalities, 2 * count);
+			}
+			keys[count] = key;
+			chunks[count] = chunk;
+			cardinalities[count] = cardinality;
+			count++;
+			size += cardinality;
+		}
+
+		CompressedBitmap build() {
+			return new CompressedBitmap(Arrays.copyOf(keys, count), Arrays.copyOf(chunks, count),
+					Arrays.copyOf(cardinalities, count), size);
+		}
+	}
+
+	public int cardinality() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(final int value) {
+		if (value < 0) {
+			return false;
+		}
+		final int i = Arrays.binarySearch(keys, (char) (value >>> CHUNK_BITS));
+		if (i < 0) {
+			return false;
+		}
+		final char low = (char) value;
+		if (chunks[i] instanceof long[]) {
+			return (((long[]) chunks[i])[low >>> 6] & 1L << low) != 0;
+		}
+		return Arrays.binarySearch((char[]) chunks[i], low) >= 0;
+	}
+
+	public CompressedBitmap and(final CompressedBitmap other) {
+		final Chunks result = new Chunks(Math.max(1, Math.min(keys.length, other.keys.length)));
+		int i = 0;
+		int j = 0;
+		while (i < keys.length && j < other.keys.length) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				final Object chunk = and(chunks[i], other.chunks[j]);
+				result.add(keys[i], chunk, cardinality(chunk));
+				i++;
+				j++;
+			}
+		}
+		return result.build();
+	}
+
+	public CompressedBitmap or(final CompressedBitmap other) {
+		final Chunks result = new Chunks(Math.max(1, keys.length + other.keys.length));
+		int i = 0;
+		int j = 0;
+		while (i < keys.length || j < other.keys.length) {
+			if (j == other.keys.length || i < keys.length && keys[i] < other.keys[j]) {
+				result.add(keys[i], chunks[i], cardinalities[i]);
+				i++;
+			} else if (i == keys.length || keys[i] > other.keys[j]) {
+				result.add(other.keys[j], other.chunks[j], other.cardinalities[j]);
+				j++;
+			} else {
+				final Object chunk = or(chunks[i], other.chunks[j]);
+				result.add(keys[i], chunk, cardinality(chunk));
+				i++;
+				j++;
+			}
+		}
+		return result.build();
+	}
+
+	// the values in any of bitmaps[from] to bitmaps[to - 1], in one pass over their
+	// chunks rather than joining them two at a time, which would copy the chunks
+	// joined so far once for every bitmap
+	public static CompressedBitmap or(final CompressedBitmap[] bitmaps, final int from, final int to) {
+		final int[] next = new int[to - from];
+		final Chunks result = new Chunks(16);
+		final long[] words = new long[BITMAP_WORDS];
+		while (true) {
+			// the lowest key of the chunks not yet joined, and how many have it
+			int key = -1;
+			int count = 0;
+			int only = -1;
+			for (int b = from; b < to; b++) {
+				final CompressedBitmap bitmap = bitmaps[b];
+				if (next[b - from] < bitmap.keys.length) {
+					final int bitmapKey = bitmap.keys[next[b - from]];
+					if (key < 0 || bitmapKey < key) {
+						key = bitmapKey;
+						count = 1;
+						only = b;
+					} else if (bitmapKey == key) {
+						count++;
+					}
+				}
+			}
+			if (key < 0) {
+				return result.build();
+			}
+
+			if (count == 1) {
+				// nothing to join it with, so shared as it is
+				final CompressedBitmap bitmap = bitmaps[only];
+				final int i = next[only - from]++;
+				result.add(bitmap.keys[i], bitmap.chunks[i], bitmap.cardinalities[i]);
+				continue;
+			}
+			Arrays.fill(words, 0);
+			for (int b = from; b < to; b++) {
+				final CompressedBitmap bitmap = bitmaps[b];
+				final int i = next[b - from];
+				if (i < bitmap.keys.length && bitmap.keys[i] == key) {
+					if (bitmap.chunks[i] instanceof long[]) {
+						final long[] bitmapWords = (long[]) bitmap.chunks[i];
+						for (int w = 0; w < BITMAP_WORDS; w++) {
+							words[w] |= bitmapWords[w];
+						}
+					} else {
+						for (final char low : (char[]) bitmap.chunks[i]) {
+							words[low >>> 6] |= 1L << low;
+						}
+					}
+					next[b - from]++;
+				}
+			}
+			final int cardinality = cardinality(words);
+			result.add((char) key, cardinality > MAX_ARRAY_SIZE ? words.clone() : toArray(words, cardinality),
+					cardinality);
+		}
+	}
+
+	private static Object and(final Object chunk1, final Object chunk2) {
+		if (chunk1 instanceof char[] && chunk2 instanceof char[]) {
+			final char[] array1 = (char[]) chunk1;
+			final char[] array2 = (char[]) chunk2;
+			final char[] both = new char[Math.min(array1.length, array2.length)];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < array1.length && j < array2.length) {
+				if (array1[i] < array2[j]) {
+					i++;
+				} else if (array1[i] > array2[j]) {
+					j++;
+				} else {
+					both[count++] = array1[i];
+					i++;
+					j++;
+				}
+			}
+			return Arrays.copyOf(both, count);
+		} else if (chunk1 instanceof long[] && chunk2 instanceof long[]) {
+			final long[] bitmap1 = (long[]) chunk1;
+			final long[] bitmap2 = (long[]) chunk2;
+			final long[] both = new long[BITMAP_WORDS];
+			int count = 0;
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				both[w] = bitmap1[w] & bitmap2[w];
+				count += Long.bitCount(both[w]);
+			}
+			return count > MAX_ARRAY_SIZE ? both : toArray(both, count);
+		}
+
+		// filter the array by the bitmap
+		final char[] array = (char[]) (chunk1 instanceof char[] ? chunk1 : chunk2);
+		final long[] bitmap = (long[]) (chunk1 instanceof long[] ? chunk1 : chunk2);
+		final char[] both = new char[array.length];
+		int count = 0;
+		for (final char low : array) {
+			if ((bitmap[low >>> 6] & 1L << low) != 0) {
+				both[count++] = low;
+			}
+		}
+		return Arrays.copyOf(both, count);
+	}
+
+	private static Object or(final Object chunk1, final Object chunk2) {
+		if (chunk1 instanceof char[] && chunk2 instanceof char[]) {
+			final char[] array1 = (char[]) chunk1;
+			final char[] array2 = (char[]) chunk2;
+			final char[] either = new char[array1.length + array2.length];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < array1.length || j < array2.length) {
+				if (j == array2.length || i < array1.length && array1[i] < array2[j]) {
+					either[count++] = array1[i++];
+				} else if (i == array1.length || array1[i] > array2[j]) {
+					either[count++] = array2[j++];
+				} else {
+					either[count++] = array1[i];
+					i++;
+					j++;
+				}
+			}
+			return count > MAX_ARRAY_SIZE ? toBitmap(either, count) : Arrays.copyOf(either, count);
+		}
+
+		final long[] either;
+		if (chunk1 instanceof long[] && chunk2 instanceof long[]) {
+			either = ((long[]) chunk1).clone();
+			final long[] bitmap2 = (long[]) chunk2;
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				either[w] |= bitmap2[w];
+			}
+		} else {
+			either = ((long[]) (chunk1 instanceof long[] ? chunk1 : chunk2)).clone();
+			for (final char low : (char[]) (chunk1 instanceof char[] ? chunk1 : chunk2)) {
+				either[low >>> 6] |= 1L << low;
+			}
+		}
+		return either;
+	}
+
+	private static int cardinality(final Object chunk) {
+		if (chunk instanceof char[]) {
+			return ((char[]) chunk).length;
+		}
+		int count = 0;
+		for (final long word : (long[]) chunk) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	private static long[] toBitmap(final char[] array, final int count) {
+		final long[] bitmap = new long[BITMAP_WORDS];
+		for (int i = 0; i < count; i++) {
+			bitmap[array[i] >>> 6] |= 1L << array[i];
+		}
+		return bitmap;
+	}
+
+	private static char[] toArray(final long[] bitmap, final int count) {
+		final char[] array = new char[count];
+		int i = 0;
+		for (int w = 0; w < BITMAP_WORDS; w++) {
+			for (long bits = bitmap[w]; bits != 0; bits &= bits - 1) {
+				array[i++] = (char) (w * Long.SIZE + Long.numberOfTrailingZeros(bits));
+			}
+		}
+		return array;
+	}
+
+	// in increasing order
+	public void forEach(final IntConsumer consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			final int high = keys[i] << CHUNK_BITS;
+			if (chunks[i] instanceof char[]) {
+				for (final char low : (char[]) chunks[i]) {
+					consumer.accept(high | low);
+				}
+			} else {
+				final long[] bitmap = (long[]) chunks[i];
+				for (int w = 0; w < BITMAP_WORDS; w++) {
+					for (long bits = bitmap[w]; bits != 0; bits &= bits - 1) {
+						consumer.accept(high | w * Long.SIZE + Long.numberOfTrailingZeros(bits));
+					}
+				}
+			}
+		}
+	}
+
+	public int[] toArray() {
+		final int[] values = new int[size];
+		final int[] count = new int[1];
+		forEach(value -> values[count[0]++] = value);
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%,d values in %,d chunks", size, keys.length);
+	}
+
+}
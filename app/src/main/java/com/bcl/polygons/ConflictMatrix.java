@@ -0,0 +1,215 @@
+package com.bcl.polygons;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.IntStream;
+
+// For every pair of sides between points of a board, whether the later side
+// makes a polygon invalid given the earlier one, so that the validity checks
+// become bit lookups. Sides are numbered from * points + to. For an earlier side
+// p->q and a later side:
+// - q->r: whether they are parallel, as AdjacentSides.isParallel
+// - with no point in common: whether they conflict, as GeometryKernel.isConflict
+// - otherwise, false
+//
+// Matrices are built in parallel and cached on disk, in the directory given by
+// the polygons.cacheDir system property or else ~/.cache/polygons, under the
+// board's key. A cached matrix holds the board's points, which are checked when
+// it is read.
+final class ConflictMatrix {
+
+	// boards with more points than this are left to the arithmetic checks
+	static final long MAX_BITS = 1L << 30;
+
+	private static final int MAGIC = 0x504c5943; // "PLYC"
+	private static final int VERSION = 2;
+
+	private final int points;
+	// bits per row, rounded up to whole longs so rows can be built in parallel
+	private final int stride;
+	// row by later side, column by earlier side
+	private final long[] bits;
+
+	private ConflictMatrix(final int points, final long[] bits) {
+		this.points = points;
+		this.stride = strideFor(points);
+		this.bits = bits;
+	}
+
+	private static int strideFor(final int points) {
+		final int sides = points * points;
+		return (sides + Long.SIZE - 1) / Long.SIZE * Long.SIZE;
+	}
+
+	static boolean fits(final Board board) {
+		final long sides = (long) board.getPointCount() * board.getPointCount();
+		return sides * strideFor(board.getPointCount()) <= MAX_BITS;
+	}
+
+	static ConflictMatrix build(final Board board) {
+		final int points = board.getPointCount();
+		final int sides = points * points;
+		final int stride = strideFor(points);
+		final long[] bits = new long[(int) ((long) sides * stride / Long.SIZE)];
+		final int[] rows = new int[points];
+		final int[] columns = new int[points];
+		for (int i = 0; i < points; i++) {
+			rows[i] = board.getPoint(i).getRow();
+			columns[i] = board.getPoint(i).getColumn();
+		}
+
+		// each later side fills its own row, and rows don't share words
+		IntStream.range(0, sides).parallel().forEach(later -> {
+			final int q = later / points;
+			final int r = later % points;
+			final long rowStart = (long) later * stride;
+			for (int earlier = 0; earlier < sides; earlier++) {
+				final int o = earlier / points;
+				final int p = earlier % points;
+				final boolean bit;
+				if (p == q) {
+					bit = GeometryKernel.isParallel(rows[p] - rows[o], columns[p] - columns[o], rows[r] - rows[q],
+							columns[r] - columns[q]);
+				} else if (o != p && o != q && o != r && p != r && q != r) {
+					bit = GeometryKernel.projectionContains(rows[o], columns[o], rows[p], columns[p], rows[q],
+							columns[q])
+							|| GeometryKernel.intersects(rows[o], columns[o], rows[p], columns[p], rows[q], columns[q],
+									rows[r], columns[r]);
+				} else {
+					bit = false;
+				}
+				if (bit) {
+					final long index = rowStart + earlier;
+					bits[(int) (index >>> 6)] |= 1L << index;
+				}
+			}
+		});
+		return new ConflictMatrix(points, bits);
+	}
+
+	// the matrix from the cache directory, or built and saved there if it isn't
+	// there yet
+	static ConflictMatrix load(final Board board) {
+		return load(board, cacheDirectory());
+	}
+
+	static ConflictMatrix load(final Board board, final Path directory) {
+		final Path path = directory.resolve(String.format("conflicts-%s-v%d.bin", board.getKey(), VERSION));
+		if (Files.exists(path)) {
+			try {
+				return read(path, board);
+			} catch (final IOException e) {
+				System.err.printf("ignoring conflict matrix cache %s: %s%n", path, e.getMessage());
+			}
+		}
+
+		final ConflictMatrix matrix = build(board);
+		try {
+			matrix.write(path, board);
+		} catch (final IOException e) {
+			System.err.printf("could not cache conflict matrix in %s: %s%n", path, e.getMessage());
+		}
+		return matrix;
+	}
+
+	private static Path cacheDirectory() {
+		final String directory = System.getProperty("polygons.cacheDir");
+		if (directory != null) {
+			return Paths.get(directory);
+		}
+		return Paths.get(System.getProperty("user.home"), ".cache", "polygons");
+	}
+
+	private static ConflictMatrix read(final Path path, final Board board) throws IOException {
+		final int points = board.getPointCount();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != points) {
+				throw new IOException("not a conflict matrix for this board");
+			}
+			for (final Point point : board.getPoints()) {
+				if (in.readInt() != point.getRow() || in.readInt() != point.getColumn()) {
+					throw new IOException("not a conflict matrix for this board");
+				}
+			}
+			final long[] bits = new long[in.readInt()];
+			if (bits.length != (long) points * points * strideFor(points) / Long.SIZE) {
+				throw new IOException("unexpected size");
+			}
+			for (int i = 0; i < bits.length; i++) {
+				bits[i] = in.readLong();
+			}
+			return new ConflictMatrix(points, bits);
+		}
+	}
+
+	// written to a temporary file and moved into place, so other runs never see a
+	// partly written matrix
+	private void write(final Path path, final Board board) throws IOException {
+		Files.createDirectories(path.getParent());
+		final Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(points);
+				for (final Point point : board.getPoints()) {
+					out.writeInt(point.getRow());
+					out.writeInt(point.getColumn());
+				}
+				out.writeInt(bits.length);
+				for (final long word : bits) {
+					out.writeLong(word);
+				}
+			}
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	int side(final int from, final int to) {
+		return from * points + to;
+	}
+
+	boolean get(final int earlier, final int later) {
+		final long index = (long) later * stride + earlier;
+		return (bits[(int) (index >>> 6)] & 1L << index) != 0;
+	}
+
+	// GeometryKernel.isValidExtension, for the polygon made of the first n of the
+	// given point indices, which must all be different
+	boolean isValidExtension(final int[] vertices, final int n) {
+		final int newest = n - 2;
+		final int closing = n - 1;
+		final int newestSide = side(vertices[newest], vertices[closing]);
+		final int closingSide = side(vertices[closing], vertices[0]);
+		final int firstSide = side(vertices[0], vertices[1]);
+		// parallel sides into the newest, closing and first vertices
+		if (get(side(vertices[newest - 1], vertices[newest]), newestSide) || get(newestSide, closingSide)
+				|| get(closingSide, firstSide)) {
+			return false;
+		}
+
+		// sides with no vertex in common with the newest side, then the closing side
+		for (int i = 0; i + 1 < newest; i++) {
+			if (get(side(vertices[i], vertices[i + 1]), newestSide)) {
+				return false;
+			}
+		}
+		for (int i = 1; i < newest; i++) {
+			if (get(side(vertices[i], vertices[i + 1]), closingSide)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.bcl.polygons;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+// Draws polygons as a grid of small tiles with Java2D, so it works off the FX
+// thread and headless. Rows of tiles are drawn into separate images, which is
+// what lets them be drawn in parallel.
+public final class ContactSheet {
+
+	// tiles per page when writing PNGs
+	static final int PAGE_COLUMNS = 50;
+	static final int PAGE_ROWS = 50;
+
+	private static final Color BACKGROUND = Color.WHITE;
+	private static final Color POINT = new Color(0xd0d0d0);
+	private static final Color FILL = new Color(0xc8dcf0);
+	private static final Color OUTLINE = Color.BLACK;
+
+	private final Board board;
+	private final int tileSize;
+
+	public ContactSheet(final Board board, final int tileSize) {
+		this.board = board;
+		this.tileSize = tileSize;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	// one row of tiles, for the given polygons from left to right; the row is
+	// columns tiles wide whether or not there are that many polygons
+	public BufferedImage renderRow(final List<Polygon> polygons, final int columns) {
+		final BufferedImage image = new BufferedImage(columns * tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			graphics.setColor(BACKGROUND);
+			graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+			for (int i = 0; i < polygons.size() && i < columns; i++) {
+				drawTile(graphics, polygons.get(i), i * tileSize);
+			}
+		} finally {
+			graphics.dispose();
+		}
+		return image;
+	}
+
+	private void drawTile(final Graphics2D graphics, final Polygon polygon, final int left) {
+		// the board's points, with a margin of half a point's spacing, centred
+		final Lattice lattice = board.getLattice();
+		final double spacing = tileSize / (Math.max(board.getWidth(), board.getHeight()) + 1);
+		final double marginX = (tileSize - board.getWidth() * spacing) / 2;
+		final double marginY = (tileSize - board.getHeight() * spacing) / 2;
+
+		graphics.setColor(POINT);
+		final int dot = Math.max(1, (int) (spacing / 6));
+		for (final Point point : board.getPoints()) {
+			final double x = left + marginX + lattice.getX(point) * spacing;
+			final double y = marginY + lattice.getY(point) * spacing;
+			graphics.fillRect((int) (x - dot / 2d), (int) (y - dot / 2d), dot, dot);
+		}
+
+		final Path2D.Double path = new Path2D.Double();
+		final List<Point> vertices = polygon.getVertices();
+		for (int i = 0; i < vertices.size(); i++) {
+			final double x = left + marginX + lattice.getX(vertices.get(i)) * spacing;
+			final double y = marginY + lattice.getY(vertices.get(i)) * spacing;
+			if (i == 0) {
+				path.moveTo(x, y);
+			} else {
+				path.lineTo(x, y);
+			}
+		}
+		path.closePath();
+		graphics.setColor(FILL);
+		graphics.fill(path);
+		graphics.setColor(OUTLINE);
+		graphics.setStroke(new BasicStroke(Math.max(1f, (float) spacing / 10)));
+		graphics.draw(path);
+	}
+
+	// rows of tiles for polygons first onwards, drawn in parallel and put together
+	public BufferedImage renderPage(final List<Polygon> polygons, final int first, final int columns,
+			final int rows) {
+		final int count = Math.min(polygons.size() - first, columns * rows);
+		final int usedRows = (count + columns - 1) / columns;
+		final BufferedImage[] rowImages = new BufferedImage[usedRows];
+		IntStream.range(0, usedRows).parallel().forEach(row -> {
+			final int from = first + row * columns;
+			rowImages[row] = renderRow(polygons.subList(from, Math.min(from + columns, first + count)), columns);
+		});
+
+		final BufferedImage page = new BufferedImage(columns * tileSize, Math.max(1, usedRows) * tileSize,
+				BufferedImage.TYPE_INT_RGB);
+		final Graphics2D graphics = page.createGraphics();
+		try {
+			graphics.setColor(BACKGROUND);
+			graphics.fillRect(0, 0, page.getWidth(), page.getHeight());
+			for (int row = 0; row < usedRows; row++) {
+				graphics.drawImage(rowImages[row], 0, row * tileSize, null);
+			}
+		} finally {
+			graphics.dispose();
+		}
+		return page;
+	}
+
+	// the whole list as numbered PNG pages: prefix-0001.png, prefix-0002.png, ...
+	// The polygons are read from several threads, so the list must allow that.
+	public int writePages(final List<Polygon> polygons, final Path prefix) throws IOException {
+		final int perPage = PAGE_COLUMNS * PAGE_ROWS;
+		int pages = 0;
+		for (int first = 0; first < polygons.size(); first += perPage) {
+			pages++;
+			final Path path = prefix
+					.resolveSibling(String.format("%s-%04d.png", prefix.getFileName().toString(), pages));
+			if (!ImageIO.write(renderPage(polygons, first, PAGE_COLUMNS, PAGE_ROWS), "png", path.toFile())) {
+				throw new IOException("no PNG writer available");
+			}
+		}
+		return pages;
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.bcl.polygons;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+// Sorts polygon records into PolygonRecord.comparator order holding at most
+// runSize of them in memory: each full batch is sorted and written to a
+// temporary file as a run, and the runs are merged when the records are read
+// back. A full batch is sorted and written by the thread that filled it,
+// outside the lock, so the other threads carry on adding meanwhile - each of
+// them may then be holding a batch of its own while writing it.
+final class ExternalSorter implements Closeable {
+
+	private final int runSize;
+	private final Path directory;
+	private List<PolygonRecord> buffer = new ArrayList<>();
+	private final List<Path> runs = new ArrayList<>();
+	// runs named so far, some of which may still be being written
+	private int runCount = 0;
+
+	ExternalSorter(final int runSize) throws IOException {
+		this.runSize = runSize;
+		this.directory = Files.createTempDirectory("polygons-sort");
+	}
+
+	// may be called from several threads
+	void add(final PolygonRecord record) {
+		final List<PolygonRecord> full;
+		final Path run;
+		synchronized (this) {
+			buffer.add(record);
+			if (buffer.size() < runSize) {
+				return;
+			}
+			full = buffer;
+			buffer = new ArrayList<>();
+			run = directory.resolve("run-" + runCount++);
+		}
+		try {
+			writeRun(full, run);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		synchronized (this) {
+			runs.add(run);
+		}
+	}
+
+	private void spill() throws IOException {
+		final Path run = directory.resolve("run-" + runCount++);
+		writeRun(buffer, run);
+		runs.add(run);
+		buffer = new ArrayList<>();
+	}
+
+	// a run that can't be written is deleted, so close() can still remove the
+	// directory and the failure isn't hidden by its not being empty
+	private static void writeRun(final List<PolygonRecord> records, final Path run) throws IOException {
+		records.sort(PolygonRecord.comparator);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			for (final PolygonRecord record : records) {
+				out.writeLong(record.getKey());
+				out.writeInt(record.getTwiceArea());
+				out.writeInt(record.getRightAngles());
+				out.writeInt(record.getDistinctSides());
+			}
+		} catch (final IOException | RuntimeException e) {
+			try {
+				Files.deleteIfExists(run);
+			} catch (final IOException deleteFailure) {
+				e.addSuppressed(deleteFailure);
+			}
+			throw e;
+		}
+	}
+
+	// call once all the records have been added
+	synchronized void forEachSorted(final Consumer<PolygonRecord> consumer) throws IOException {
+		if (runs.isEmpty()) {
+			// everything fitted in memory
+			buffer.sort(PolygonRecord.comparator);
+			buffer.forEach(consumer);
+			return;
+		}
+
+		if (!buffer.isEmpty()) {
+			spill();
+		}
+
+		final PriorityQueue<RunReader> readers = new PriorityQueue<>(
+				(reader1, reader2) -> PolygonRecord.comparator.compare(reader1.current, reader2.current));
+		try {
+			for (final Path run : runs) {
+				final RunReader reader = new RunReader(run);
+				if (reader.advance()) {
+					readers.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+
+			while (!readers.isEmpty()) {
+				final RunReader reader = readers.poll();
+				consumer.accept(reader.current);
+				if (reader.advance()) {
+					readers.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+		} finally {
+			for (final RunReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		for (final Path run : runs) {
+			Files.deleteIfExists(run);
+		}
+		runs.clear();
+		Files.deleteIfExists(directory);
+	}
+
+	private static final class RunReader implements Closeable {
+		private final DataInputStream in;
+		private PolygonRecord current;
+
+		RunReader(final Path run) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+		}
+
+		boolean advance() throws IOException {
+			final long key;
+			try {
+				key = in.readLong();
+			} catch (@SuppressWarnings("unused") final EOFException e) {
+				return false;
+			}
+			current = new PolygonRecord(key, in.readInt(), in.readInt(), in.readInt());
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+}
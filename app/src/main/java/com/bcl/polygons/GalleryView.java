@@ -0,0 +1,167 @@
+package com.bcl.polygons;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+// A scrolling grid of thumbnails of a list of polygons. Only the rows of tiles
+// in view are drawn, by ContactSheet on background threads, and the most
+// recently drawn rows are kept for scrolling back.
+final class GalleryView {
+
+	private static final int CACHED_ROWS = 256;
+
+	private final ContactSheet sheet;
+	private final ExecutorService renderers = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), runnable -> {
+				final Thread thread = new Thread(runnable, "gallery");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	private final Canvas canvas = new Canvas();
+	private final ScrollBar scrollBar = new ScrollBar();
+	private final BorderPane root = new BorderPane();
+
+	private List<Polygon> polygons = new ArrayList<>();
+	private int columns = 1;
+	// rendered rows by row number, least recently used first
+	private final Map<Integer, Image> rows = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Integer, Image> eldest) {
+			return size() > CACHED_ROWS;
+		}
+	};
+	private final Set<Integer> pending = new HashSet<>();
+	// bumped whenever the rows being rendered are out of date
+	private int generation = 0;
+
+	GalleryView(final Board board, final int tileSize) {
+		sheet = new ContactSheet(board, tileSize);
+
+		// the canvas fills the space next to the scroll bar
+		final Pane canvasPane = new Pane(canvas);
+		canvas.widthProperty().bind(canvasPane.widthProperty());
+		canvas.heightProperty().bind(canvasPane.heightProperty());
+		canvas.widthProperty().addListener((observable, oldValue, newValue) -> layout());
+		canvas.heightProperty().addListener((observable, oldValue, newValue) -> layout());
+		canvas.setOnScroll(e -> scrollBar.setValue(
+				Math.max(scrollBar.getMin(), Math.min(scrollBar.getMax(), scrollBar.getValue() - e.getDeltaY()))));
+
+		scrollBar.setOrientation(Orientation.VERTICAL);
+		scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> draw());
+
+		root.setCenter(canvasPane);
+		root.setRight(scrollBar);
+	}
+
+	Parent getNode() {
+		return root;
+	}
+
+	// call on the FX thread; the list mustn't change while it is shown
+	void setPolygons(final List<Polygon> polygons) {
+		this.polygons = polygons;
+		invalidate();
+		layout();
+	}
+
+	void shutdown() {
+		renderers.shutdownNow();
+	}
+
+	private void invalidate() {
+		generation++;
+		rows.clear();
+		pending.clear();
+	}
+
+	private void layout() {
+		final int tileSize = sheet.getTileSize();
+		final int newColumns = Math.max(1, (int) canvas.getWidth() / tileSize);
+		if (newColumns != columns) {
+			columns = newColumns;
+			invalidate();
+		}
+		final int rowCount = (polygons.size() + columns - 1) / columns;
+		scrollBar.setMax(Math.max(0, rowCount * tileSize - canvas.getHeight()));
+		scrollBar.setVisibleAmount(canvas.getHeight());
+		scrollBar.setUnitIncrement(tileSize);
+		scrollBar.setBlockIncrement(canvas.getHeight());
+		draw();
+	}
+
+	private void draw() {
+		final GraphicsContext graphics = canvas.getGraphicsContext2D();
+		graphics.setFill(Color.WHITE);
+		graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+		final int tileSize = sheet.getTileSize();
+		final double top = scrollBar.getValue();
+		final int rowCount = (polygons.size() + columns - 1) / columns;
+		final int firstRow = (int) (top / tileSize);
+		final int lastRow = Math.min(rowCount - 1, (int) ((top + canvas.getHeight()) / tileSize));
+		for (int row = firstRow; row <= lastRow; row++) {
+			final Image image = rows.get(row);
+			if (image != null) {
+				graphics.drawImage(image, 0, row * tileSize - top);
+			} else {
+				request(row);
+			}
+		}
+	}
+
+	private void request(final int row) {
+		if (!pending.add(row)) {
+			return;
+		}
+		// the polygons are read here, on the FX thread, as the list needn't be
+		// thread-safe
+		final int from = row * columns;
+		final List<Polygon> rowPolygons = new ArrayList<>(
+				polygons.subList(from, Math.min(from + columns, polygons.size())));
+		final int rowColumns = columns;
+		final int rowGeneration = generation;
+		renderers.execute(() -> {
+			final Image image = toImage(sheet.renderRow(rowPolygons, rowColumns));
+			Platform.runLater(() -> {
+				if (rowGeneration == generation) {
+					pending.remove(row);
+					rows.put(row, image);
+					draw();
+				}
+			});
+		});
+	}
+
+	private static Image toImage(final BufferedImage bufferedImage) {
+		final int width = bufferedImage.getWidth();
+		final int height = bufferedImage.getHeight();
+		final int[] pixels = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
+		final WritableImage image = new WritableImage(width, height);
+		image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+		return image;
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.bcl.polygons;
+
+// Allocation-free versions of the checks in Side, AdjacentSides and Polygon,
+// working on vertices held as separate row and column arrays. Each method gives
+// exactly the same answer as the object version it is named after.
+final class GeometryKernel {
+
+	private GeometryKernel() {
+	}
+
+	// AdjacentSides.isParallel, for sides with the given directions
+	static boolean isParallel(final int dRow1, final int dColumn1, final int dRow2, final int dColumn2) {
+		return dRow1 * dColumn2 == dRow2 * dColumn1;
+	}
+
+	// Side.projectionContains
+	static boolean projectionContains(final int startRow, final int startColumn, final int endRow,
+			final int endColumn, final int row, final int column) {
+		return (endRow - startRow) * (column - startColumn) == (row - startRow) * (endColumn - startColumn);
+	}
+
+	// Side.intersects, for side a then side b
+	static boolean intersects(final int y1a, final int x1a, final int y2a, final int x2a, final int y1b,
+			final int x1b, final int y2b, final int x2b) {
+
+		final int discriminator = (x2b - x1b) * (y1a - y2a) - (x1a - x2a) * (y2b - y1b);
+		if (discriminator == 0) {
+			return false;
+		}
+
+		final int dA = (y1b - y2b) * (x1a - x1b) + (x2b - x1b) * (y1a - y1b);
+		final int dB = (y1a - y2a) * (x1a - x1b) + (x2a - x1a) * (y1a - y1b);
+
+		if (discriminator > 0) {
+			return dA >= 0 && dA <= discriminator && dB >= 0 && dB <= discriminator;
+		} else {
+			return dA >= discriminator && dA < 0 && dB >= discriminator && dB <= 0;
+		}
+	}
+
+	// Side.crosses, for side a then side b
+	static boolean crosses(final int y1a, final int x1a, final int y2a, final int x2a, final int y1b, final int x1b,
+			final int y2b, final int x2b) {
+
+		final int discriminator = (x2b - x1b) * (y1a - y2a) - (x1a - x2a) * (y2b - y1b);
+		if (discriminator == 0) {
+			return false;
+		}
+
+		final int dA = (y1b - y2b) * (x1a - x1b) + (x2b - x1b) * (y1a - y1b);
+		final int dB = (y1a - y2a) * (x1a - x1b) + (x2a - x1a) * (y1a - y1b);
+
+		if (discriminator > 0) {
+			return dA > 0 && dA < discriminator && dB > 0 && dB < discriminator;
+		} else {
+			return dA < 0 && dA > discriminator && dB < 0 && dB > discriminator;
+		}
+	}
+
+	// Side.isCollinearWith, for side a then side b
+	static boolean isCollinear(final int y1a, final int x1a, final int y2a, final int x2a, final int y1b,
+			final int x1b, final int y2b, final int x2b) {
+		return projectionContains(y1a, x1a, y2a, x2a, y1b, x1b) && projectionContains(y1a, x1a, y2a, x2a, y2b, x2b);
+	}
+
+	// Side.isNonAdjacentTo, for the sides from vertex i1 to i2 and from j1 to j2
+	static boolean isNonAdjacent(final int[] rows, final int[] columns, final int i1, final int i2, final int j1,
+			final int j2) {
+		return !isSamePoint(rows, columns, i1, i2) && !isSamePoint(rows, columns, i1, j1)
+				&& !isSamePoint(rows, columns, i1, j2) && !isSamePoint(rows, columns, i2, j1)
+				&& !isSamePoint(rows, columns, i2, j2) && !isSamePoint(rows, columns, j1, j2);
+	}
+
+	private static boolean isSamePoint(final int[] rows, final int[] columns, final int i, final int j) {
+		return rows[i] == rows[j] && columns[i] == columns[j];
+	}
+
+	// whether the side from vertex i1 to i2 and the later side from j1 to j2 make
+	// the polygon invalid, by the test in Polygon.isValid
+	static boolean isConflict(final int[] rows, final int[] columns, final int i1, final int i2, final int j1,
+			final int j2) {
+		return projectionContains(rows[i1], columns[i1], rows[i2], columns[i2], rows[j1], columns[j1])
+				|| intersects(rows[i1], columns[i1], rows[i2], columns[i2], rows[j1], columns[j1], rows[j2],
+						columns[j2]);
+	}
+
+	// whether the sides into and out of vertex i are parallel
+	static boolean isParallelAt(final int[] rows, final int[] columns, final int n, final int i) {
+		final int previous = (i + n - 1) % n;
+		final int next = (i + 1) % n;
+		return isParallel(rows[i] - rows[previous], columns[i] - columns[previous], rows[next] - rows[i],
+				columns[next] - columns[i]);
+	}
+
+	// Polygon.isValid, for the polygon made of the first n vertices
+	static boolean isValid(final int[] rows, final int[] columns, final int n) {
+		for (int i = 0; i < n; i++) {
+			if (isParallelAt(rows, columns, n, i)) {
+				// Check no two adjoining sides are in the same direction
+				return false;
+			}
+		}
+
+		// check pairs of non-adjacent sides to check they do not overlap or intersect
+		for (int i = 0; i < n; i++) {
+			final int i2 = (i + 1) % n;
+			for (int j = i + 1; j < n; j++) {
+				final int j2 = (j + 1) % n;
+				if (isNonAdjacent(rows, columns, i, i2, j, j2) && isConflict(rows, columns, i, i2, j, j2)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	// Polygon.isValid for the polygon made of the first n vertices, given that the
+	// polygon made of the first n - 1 vertices was valid (or n is 3). Only the
+	// checks involving the newest open side and the closing side are made.
+	static boolean isValidExtension(final int[] rows, final int[] columns, final int n) {
+		final int newest = n - 2;
+		final int closing = n - 1;
+		if (isParallelAt(rows, columns, n, newest) || isParallelAt(rows, columns, n, closing)
+				|| isParallelAt(rows, columns, n, 0)) {
+			return false;
+		}
+
+		for (int i = 0; i < newest; i++) {
+			if (isNonAdjacent(rows, columns, i, i + 1, newest, closing)
+					&& isConflict(rows, columns, i, i + 1, newest, closing)) {
+				return false;
+			}
+			if (isNonAdjacent(rows, columns, i, i + 1, closing, 0) && isConflict(rows, columns, i, i + 1, closing, 0)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// whether the newest side of the open path made of the first n vertices is
+	// free of the problems that make the polygon invalid whatever order its
+	// vertices are taken in: running parallel to the previous side, or crossing or
+	// running along the same line as an earlier one
+	static boolean isViableExtension(final int[] rows, final int[] columns, final int n) {
+		final int last = n - 1;
+		if (isParallel(rows[last - 1] - rows[last - 2], columns[last - 1] - columns[last - 2],
+				rows[last] - rows[last - 1], columns[last] - columns[last - 1])) {
+			return false;
+		}
+		for (int i = 0; i + 3 < n; i++) {
+			if (isCollinear(rows[i], columns[i], rows[i + 1], columns[i + 1], rows[last - 1], columns[last - 1],
+					rows[last], columns[last])
+					|| crosses(rows[i], columns[i], rows[i + 1], columns[i + 1], rows[last - 1], columns[last - 1],
+							rows[last], columns[last])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Polygon.getTwiceArea
+	static int twiceArea(final int[] rows, final int[] columns, final int n) {
+		int accumulator = 0;
+		for (int i = 0; i < n; i++) {
+			final int next = (i + 1) % n;
+			accumulator += columns[i] * rows[next] - rows[i] * columns[next];
+		}
+		return Math.abs(accumulator);
+	}
+
+	// Polygon.countRightAngles, for a polygon on the given lattice
+	static int countRightAngles(final Lattice lattice, final int[] rows, final int[] columns, final int n) {
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			final int next = (i + 1) % n;
+			final int afterNext = (i + 2) % n;
+			if (lattice.isRightAngle(rows[next] - rows[i], columns[next] - columns[i], rows[afterNext] - rows[next],
+					columns[afterNext] - columns[next])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// Polygon.countDistinctSides, for a polygon on the given lattice - side lengths
+	// are compared after the same rounding as Side.length
+	static int countDistinctSides(final Lattice lattice, final int[] rows, final int[] columns, final int n) {
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			final double length = length(lattice, rows, columns, n, i);
+			boolean seen = false;
+			for (int j = 0; j < i && !seen; j++) {
+				seen = length(lattice, rows, columns, n, j) == length;
+			}
+			if (!seen) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static double length(final Lattice lattice, final int[] rows, final int[] columns, final int n,
+			final int i) {
+		final int next = (i + 1) % n;
+		return lattice.length(rows[i] - rows[next], columns[i] - columns[next]);
+	}
+
+	// side lengths are compared to 2 decimal places
+	static double round(final double d) {
+		return Math.round(100d * d) / 100d;
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.bcl.polygons;
+
+import java.util.List;
+
+// How a board's rows and columns are laid out in the plane. Whether a polygon is
+// valid only depends on which points are in line and which sides cross, which
+// is the same however the lattice is laid out, so the search works on rows and
+// columns alone; angles and side lengths depend on the layout, and are
+// worked out here.
+public enum Lattice {
+
+	// rows and columns one unit apart
+	SQUARE(1, 1, 1, List.of( //
+			new Transform("identity", true, 1, 0, 0, 1), //
+			new Transform("rotate 90", true, 0, 1, -1, 0), //
+			new Transform("rotate 180", true, -1, 0, 0, -1), //
+			new Transform("rotate 270", true, 0, -1, 1, 0), //
+			new Transform("reflect rows", false, -1, 0, 0, 1), //
+			new Transform("reflect columns", false, 1, 0, 0, -1), //
+			new Transform("reflect diagonal", false, 0, 1, 1, 0), //
+			new Transform("reflect anti-diagonal", false, 0, -1, -1, 0))),
+
+	// rows of points one unit apart, each offset by half a unit from the next,
+	// so every three neighbouring points make an equilateral triangle. Columns
+	// count half units, so the points are those whose row and column add up to
+	// an even number, and twice the area of a polygon counts its unit triangles
+	// twice over.
+	TRIANGULAR(3, 2, 2, List.of( //
+			new Transform("identity", true, 2, 0, 0, 2), //
+			new Transform("rotate 60", true, 1, 1, -3, 1), //
+			new Transform("rotate 120", true, -1, 1, -3, -1), //
+			new Transform("rotate 180", true, -2, 0, 0, -2), //
+			new Transform("rotate 240", true, -1, -1, 3, -1), //
+			new Transform("rotate 300", true, 1, -1, 3, 1), //
+			new Transform("reflect rows", false, -2, 0, 0, 2), //
+			new Transform("reflect 30", false, -1, 1, 3, 1), //
+			new Transform("reflect 60", false, 1, 1, 3, -1), //
+			new Transform("reflect columns", false, 2, 0, 0, -2), //
+			new Transform("reflect 120", false, 1, -1, -3, -1), //
+			new Transform("reflect 150", false, -1, -1, -3, 1)));
+
+	// a linear map of the lattice onto itself, as new row = (rowRow * row +
+	// rowColumn * column) / the lattice's divisor, and likewise for the new
+	// column. The rotations come first, smallest angle first.
+	static final class Transform {
+		final String name;
+		final boolean rotation;
+		final int rowRow;
+		final int rowColumn;
+		final int columnRow;
+		final int columnColumn;
+
+		Transform(final String name, final boolean rotation, final int rowRow, final int rowColumn,
+				final int columnRow, final int columnColumn) {
+			this.name = name;
+			this.rotation = rotation;
+			this.rowRow = rowRow;
+			this.rowColumn = rowColumn;
+			this.columnRow = columnRow;
+			this.columnColumn = columnColumn;
+		}
+	}
+
+	// squared distances are rowWeight * rows^2 + columns^2, in columns
+	private final int rowWeight;
+	// columns per unit of distance
+	private final int columnsPerUnit;
+	private final int divisor;
+	private final List<Transform> transforms;
+
+	Lattice(final int rowWeight, final int columnsPerUnit, final int divisor, final List<Transform> transforms) {
+		this.rowWeight = rowWeight;
+		this.columnsPerUnit = columnsPerUnit;
+		this.divisor = divisor;
+		this.transforms = transforms;
+	}
+
+	// whether there is a lattice point at the given row and column
+	public boolean contains(final int row, final int column) {
+		return this == SQUARE || (row + column) % 2 == 0;
+	}
+
+	// where the point is in the plane, in units of the distance between
+	// neighbouring points
+	public double getX(final Point point) {
+		return point.getColumn() / (double) columnsPerUnit;
+	}
+
+	public double getY(final Point point) {
+		return point.getRow() * Math.sqrt(rowWeight) / columnsPerUnit;
+	}
+
+	// AdjacentSides.isRightAngle, for sides with the given directions
+	boolean isRightAngle(final int dRow1, final int dColumn1, final int dRow2, final int dColumn2) {
+		return rowWeight * dRow1 * dRow2 + dColumn1 * dColumn2 == 0;
+	}
+
+	// Side.length, for a side with the given direction, rounded as side lengths are
+	// compared
+	double length(final int dRow, final int dColumn) {
+		final double xLen = dColumn;
+		final double yLen = dRow;
+		return GeometryKernel.round(Math.sqrt(rowWeight * yLen * yLen + xLen * xLen) / columnsPerUnit);
+	}
+
+	List<Transform> getTransforms() {
+		return transforms;
+	}
+
+	int getDivisor() {
+		return divisor;
+	}
+
+}
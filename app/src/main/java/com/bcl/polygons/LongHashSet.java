@@ -0,0 +1,129 @@
+package com.bcl.polygons;
+
+// A thread-safe set of keys of one or two longs, held in open-addressed primitive
+// arrays rather than as boxed Longs. The table is split into segments, each with
+// its own lock, so threads adding different keys rarely contend.
+final class LongHashSet {
+
+	private static final int SEGMENTS = 64;
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	private final int width;
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	LongHashSet(final int width) {
+		if (width < 1 || width > 2) {
+			throw new IllegalArgumentException("keys must be one or two longs");
+		}
+		this.width = width;
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(width);
+		}
+	}
+
+	// true if the key was not already present
+	boolean add(final long key) {
+		return add(key, 0);
+	}
+
+	boolean add(final long high, final long low) {
+		final long hash = mix(high * 31 + low);
+		// the segment from the top bits of the hash, the slot from the bottom bits
+		final Segment segment = segments[(int) (hash >>> 58)];
+		synchronized (segment) {
+			return segment.add(high, width == 2 ? low : 0, (int) hash);
+		}
+	}
+
+	long size() {
+		long size = 0;
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size;
+			}
+		}
+		return size;
+	}
+
+	// the finalizer from MurmurHash3, so keys that differ only in the high bits
+	// still spread across the table
+	private static long mix(final long key) {
+		long hash = key;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private static final class Segment {
+		private final int width;
+		// the key of all zeros marks an empty slot, so whether it is present is
+		// recorded separately
+		private long[] keys;
+		private boolean containsZero = false;
+		private int size = 0;
+
+		Segment(final int width) {
+			this.width = width;
+			this.keys = new long[INITIAL_CAPACITY * width];
+		}
+
+		boolean add(final long high, final long low, final int hash) {
+			if (high == 0 && low == 0) {
+				if (containsZero) {
+					return false;
+				}
+				containsZero = true;
+				size++;
+				return true;
+			}
+
+			final int mask = keys.length / width - 1;
+			int slot = hash & mask;
+			while (true) {
+				final int index = slot * width;
+				final long slotHigh = keys[index];
+				final long slotLow = width == 2 ? keys[index + 1] : 0;
+				if (slotHigh == 0 && slotLow == 0) {
+					keys[index] = high;
+					if (width == 2) {
+						keys[index + 1] = low;
+					}
+					size++;
+					if (size * 4L > (mask + 1) * 3L) {
+						grow();
+					}
+					return true;
+				}
+				if (slotHigh == high && slotLow == low) {
+					return false;
+				}
+				slot = slot + 1 & mask;
+			}
+		}
+
+		private void grow() {
+			final long[] oldKeys = keys;
+			keys = new long[oldKeys.length * 2];
+			final int mask = keys.length / width - 1;
+			for (int index = 0; index < oldKeys.length; index += width) {
+				final long high = oldKeys[index];
+				final long low = width == 2 ? oldKeys[index + 1] : 0;
+				if (high == 0 && low == 0) {
+					continue;
+				}
+				int slot = (int) mix(high * 31 + low) & mask;
+				while (keys[slot * width] != 0 || width == 2 && keys[slot * width + 1] != 0) {
+					slot = slot + 1 & mask;
+				}
+				keys[slot * width] = high;
+				if (width == 2) {
+					keys[slot * width + 1] = low;
+				}
+			}
+		}
+	}
+
+}
@@ -1,27 +1,27 @@
 package com.bcl.polygons;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
-import javafx.scene.Node;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
 import javafx.stage.Stage;
 
 public class MainApp extends Application {
@@ -34,22 +34,44 @@ public class MainApp extends Application {
 //			3;
 			3;
 	private static final int VERTICES = 3;
+	private static final int GALLERY_TILE_SIZE = 64;
 
-	private static final int POINTS = SIZE * SIZE;
+	// the square board searched, or the board of the results loaded
+	private Board board = Board.square(SIZE, INNER_REMOVALS);
 
 	private Pane pane;
 
-	private final List<Polygon> polygons = new ArrayList<>();
-	private final List<Node> lastShapes = new ArrayList<>();
+	// either found by the background search, or paged in from a result file given
+	// as --load=FILE
+	private List<Polygon> polygons = new ArrayList<>();
+	private PolygonFileReader reader = null;
+	// the polygons played back and put in the gallery: all of them, or those
+	// matching the filter
+	private List<Polygon> shown = polygons;
+	// made in the background once all the polygons are there; null until then
+	private PolygonIndex index = null;
+	private boolean searching = false;
+
+	// polygons found by the background search, waiting to be added to polygons on
+	// the FX thread
+	private final Queue<Polygon> found = new ConcurrentLinkedQueue<>();
+	private final SearchProgress searchProgress = new SearchProgress();
+	// polygons shown per second, which can be set as --rate=N
+	private double playbackRate = 20;
 
 	@Override
 	public void start(final Stage primaryStage) throws Exception {
 
-		final long start = System.currentTimeMillis();
-		populatePolygons();
-		final long end = System.currentTimeMillis();
-		final long elapsed = end - start;
-		System.out.printf("populatePolygons took %,d ms\n", elapsed);
+		final String rate = getParameters().getNamed().get("rate");
+		if (rate != null) {
+			playbackRate = Double.parseDouble(rate);
+		}
+
+		final String load = getParameters().getNamed().get("load");
+		if (load != null) {
+			reader = new PolygonFileReader(Paths.get(load));
+			board = reader.getBoard();
+		}
 
 		pane = new Pane();
 
@@ -59,70 +81,86 @@ public class MainApp extends Application {
 		primaryStage.setScene(new Scene(pane, 800, 600));
 
 		final Label countLabel = new Label();
-		countLabel.setLayoutX(cToX(SIZE + 1));
-		countLabel.setLayoutY(rToY(1));
+		countLabel.setLayoutX(controlX(1));
+		countLabel.setLayoutY(controlY(1));
 		pane.getChildren().add(countLabel);
 
 		final Label progressLabel = new Label();
-		progressLabel.setLayoutX(cToX(SIZE + 2));
-		progressLabel.setLayoutY(rToY(1));
+		progressLabel.setLayoutX(controlX(2));
+		progressLabel.setLayoutY(controlY(1));
 		pane.getChildren().add(progressLabel);
 
 		final Label areaLabel = new Label();
-		areaLabel.setLayoutX(cToX(SIZE + 3));
-		areaLabel.setLayoutY(rToY(1));
+		areaLabel.setLayoutX(controlX(3));
+		areaLabel.setLayoutY(controlY(1));
 		pane.getChildren().add(areaLabel);
 
+		final PolygonRenderer renderer = new PolygonRenderer(this::pointToX, this::pointToY);
+		pane.getChildren().add(renderer.getNode());
+
 		final AtomicInteger polygonIndexAtomic = new AtomicInteger();
 
+		// polygons are shown at the playback rate, which may be faster than the frame
+		// rate - then each frame shows the latest polygon due and skips the rest
 		final AnimationTimer timer = new AnimationTimer() {
-			private long lastUpdate = System.nanoTime();
+			private long lastUpdate = -1;
+			private double due = 0;
 
 			@Override
-			public void handle(final long now) {
-				if (now - lastUpdate >= 1_000_000_000 / 20
-//						/ 10
-				) {
-
-					pane.getChildren().removeAll(lastShapes);
-					lastShapes.clear();
-
-					final int polygonIndex = polygonIndexAtomic.getAndIncrement();
-
-					if (polygonIndex < polygons.size()) {
-
-						countLabel.setText(String.format("%d/%d", polygonIndexAtomic.get(), polygons.size()));
-						progressLabel.setText(String.format("%d%%", polygonIndexAtomic.get() * 100 / polygons.size()));
-
-						System.out.println(polygonIndex);
-
-						final Polygon polygon = polygons.get(polygonIndex);
-						System.out.println("Polygon: " + polygon);
-
-						final double area = polygon.getArea();
-						System.out.println("Area: " + area);
-
-						areaLabel.setText(String.valueOf(area));
-
-						// draw a circle on each vertex
-						polygon.getVertices().forEach(vertex -> lastShapes.add(getCircle(vertex, Color.BLACK, 30)));
-
-						// draw a line for each side
-						polygon.getSides()
-								.forEach(side -> lastShapes.add(getLine(side.getStart(), side.getEnd(), Color.BLACK)));
-
-						pane.getChildren().addAll(lastShapes);
+			public void start() {
+				lastUpdate = -1;
+				super.start();
+			}
 
-					}
+			@Override
+			public void handle(final long now) {
+				if (lastUpdate < 0) {
+					// show the first polygon straight away
+					due = 1;
+				} else {
+					due += (now - lastUpdate) * playbackRate / 1e9;
+				}
+				lastUpdate = now;
+				if (due < 1) {
+					return;
+				}
 
-					lastUpdate = now;
+				final int steps = (int) due;
+				due -= steps;
+				final int polygonIndex = polygonIndexAtomic.getAndAdd(steps) + steps - 1;
+				if (polygonIndex < shown.size()) {
+					countLabel.setText((polygonIndex + 1) + "/" + shown.size());
+					progressLabel.setText((polygonIndex + 1) * 100L / shown.size() + "%");
+
+					final Polygon polygon = shown.get(polygonIndex);
+					areaLabel.setText(String.valueOf(polygon.getArea()));
+					renderer.show(polygon);
+				} else {
+					// wait at the end for any more polygons to be found
+					polygonIndexAtomic.set(shown.size());
 				}
 			}
 		};
 
+		final Label rateLabel = new Label();
+		rateLabel.setLayoutX(controlX(3));
+		rateLabel.setLayoutY(controlY(3));
+		pane.getChildren().add(rateLabel);
+
+		// from 1 to 100,000 polygons a second, on a log scale
+		final Slider rateSlider = new Slider(0, 5, Math.log10(playbackRate));
+		rateSlider.setLayoutX(controlX(1));
+		rateSlider.setLayoutY(controlY(3));
+		rateSlider.setPrefWidth(toX(2) - toX(0));
+		rateSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+			playbackRate = Math.pow(10, newValue.doubleValue());
+			rateLabel.setText(String.format("%,.0f/s", playbackRate));
+		});
+		rateLabel.setText(String.format("%,.0f/s", playbackRate));
+
 		final Button startButton = new Button();
-		startButton.setLayoutX(cToX(SIZE + 1));
-		startButton.setLayoutY(rToY(0));
+		startButton.setLayoutX(controlX(1));
+		startButton.setLayoutY(controlY(0));
 		startButton.setText("Start");
 		startButton.setOnAction(e -> {
 			timer.start();
@@ -130,8 +168,8 @@ public class MainApp extends Application {
 		pane.getChildren().add(startButton);
 
 		final Button stopButton = new Button();
-		stopButton.setLayoutX(cToX(SIZE + 2));
-		stopButton.setLayoutY(rToY(0));
+		stopButton.setLayoutX(controlX(2));
+		stopButton.setLayoutY(controlY(0));
 		stopButton.setText("Stop");
 		stopButton.setOnAction(e -> {
 			timer.stop();
@@ -139,222 +177,258 @@ public class MainApp extends Application {
 		pane.getChildren().add(stopButton);
 
 		final Button resetButton = new Button();
-		resetButton.setLayoutX(cToX(SIZE + 3));
-		resetButton.setLayoutY(rToY(0));
+		resetButton.setLayoutX(controlX(3));
+		resetButton.setLayoutY(controlY(0));
 		resetButton.setText("Reset");
 		resetButton.setOnAction(e -> {
 			polygonIndexAtomic.set(0);
 			countLabel.setText("");
+			renderer.clear();
 		});
 		pane.getChildren().add(resetButton);
+		pane.getChildren().add(rateSlider);
+
+		final Label searchLabel = new Label();
+		searchLabel.setLayoutX(controlX(1));
+		searchLabel.setLayoutY(controlY(2));
+		pane.getChildren().add(searchLabel);
+
+		final Button cancelButton = new Button();
+		cancelButton.setLayoutX(controlX(4));
+		cancelButton.setLayoutY(controlY(0));
+		cancelButton.setText("Cancel search");
+		cancelButton.setOnAction(e -> {
+			searchProgress.cancel();
+		});
+		pane.getChildren().add(cancelButton);
+
+		final Button galleryButton = new Button();
+		galleryButton.setLayoutX(controlX(5));
+		galleryButton.setLayoutY(controlY(0));
+		galleryButton.setText("Gallery");
+		galleryButton.setOnAction(e -> {
+			showGallery();
+		});
+		pane.getChildren().add(galleryButton);
+
+		final Label filterLabel = new Label();
+		filterLabel.setLayoutX(controlX(4));
+		filterLabel.setLayoutY(controlY(4));
+		pane.getChildren().add(filterLabel);
+
+		// a PolygonIndex query, such as "twice-area=4-8 right-angles=2-", played back
+		// from the start; an empty filter shows every polygon
+		final TextField filterField = new TextField();
+		filterField.setLayoutX(controlX(1));
+		filterField.setLayoutY(controlY(4));
+		filterField.setPrefWidth(toX(2) - toX(0));
+		filterField.setPromptText("twice-area=4-8 vertex=1,1");
+		filterField.setOnAction(e -> {
+			if (filter(filterField.getText(), filterLabel)) {
+				polygonIndexAtomic.set(0);
+				countLabel.setText("");
+				renderer.clear();
+			}
+		});
+		pane.getChildren().add(filterField);
+
+		final Button filterButton = new Button();
+		filterButton.setLayoutX(controlX(3));
+		filterButton.setLayoutY(controlY(4));
+		filterButton.setText("Filter");
+		filterButton.setOnAction(filterField.getOnAction());
+		pane.getChildren().add(filterButton);
 
 		primaryStage.setMaximized(true);
 		primaryStage.show();
 
-	}
-
-	private final Comparator<Polygon> comparatorSize = Comparator.comparing(Polygon::getTwiceArea);
-	private final Comparator<Polygon> comparatorRightAngle = Comparator.comparing(Polygon::countRightAngles);
-	private final Comparator<Polygon> comparatorDistinctSides = Comparator.comparing(Polygon::countDistinctSides);
-	private final Comparator<Polygon> comparatorVertices = new Comparator<Polygon>() {
-
-		@Override
-		public int compare(final Polygon o1, final Polygon o2) {
-			final List<Point> vertices1 = o1.getVertices();
-			final List<Point> vertices2 = o2.getVertices();
-
-			final int lowestPointOffest1 = getLowestPointOffset(vertices1);
-			final int lowestPointOffest2 = getLowestPointOffset(vertices2);
-
-			for (int i = 0; i < VERTICES; i++) {
-				final Point vertex1 = vertices1.get((i + lowestPointOffest1) % VERTICES);
-				final Point vertex2 = vertices2.get((i + lowestPointOffest2) % VERTICES);
-
-				final int result = vertex1.compareTo(vertex2);
-				if (result != 0) {
-					return result;
-				}
-
-			}
-			// same
-			return 0;
-		}
-
-		private int getLowestPointOffset(final List<Point> vertices) {
-			int lowestPointOffset = 0;
-			for (int i = 1; i < VERTICES; i++) {
-				if (vertices.get(lowestPointOffset).compareTo(vertices.get(i)) > 0) {
-					// vertex as i is lower
-					lowestPointOffset = i;
-				}
-			}
-			return lowestPointOffset;
-		}
-	};
+		populatePolygons(searchLabel, cancelButton, filterLabel);
 
-	private final Comparator<Polygon> comparator = comparatorSize.reversed()
-			.thenComparing(comparatorRightAngle.reversed()).thenComparing(comparatorDistinctSides)
-			.thenComparing(comparatorVertices);
+	}
 
-	private void populatePolygons() {
+	private void populatePolygons(final Label searchLabel, final Button cancelButton, final Label filterLabel) {
 
-		final SortedSet<Point> points = new TreeSet<>();
-		for (int i = 0; i < POINTS; i++) {
-			final Point point = new Point(i);
-			if (validPoint(point)) {
-				points.add(point);
-			}
+		if (reader != null) {
+			polygons = reader.asList();
+			shown = polygons;
+			searchLabel.setText(String.format("%,d polygons loaded", polygons.size()));
+			cancelButton.setDisable(true);
+			startIndexing(filterLabel, false);
+			return;
 		}
 
-		// Track Polygon equality - equals takes into account two Polygons where the
-		// vertices of one are clockwise but the others are anticlockwise; the
-		// comparator doesn't
-		final Set<Polygon> polygonsSet = new HashSet<>();
-		identifyCandidatePolygons(polygonsSet, Collections.emptyList(), points);
-
-		// sort into order
-		final SortedSet<Polygon> polygonsSorted = new TreeSet<>(comparator);
-		polygonsSorted.addAll(polygonsSet);
-
-		// pick off each polygon and its rotations
-		while (!polygonsSorted.isEmpty()) {
+		// search in the background, so the window stays responsive. Polygons can be
+		// shown as soon as they are found, and are put into order in the background
+		// once they have all been found.
+		final AnimationTimer progressTimer = new AnimationTimer() {
+			private long lastUpdate = 0;
 
-			final Polygon polygon = polygonsSorted.first();
-			polygonsSorted.remove(polygon);
-
-			polygons.add(polygon);
-
-			Polygon rotatedPolygon = polygon;
-			while (true) {
-				rotatedPolygon = rotatePolygon(rotatedPolygon);
-				if (!polygonsSorted.remove(rotatedPolygon)) {
-					// no more rotations
-					break;
+			@Override
+			public void handle(final long now) {
+				if (now - lastUpdate >= 1_000_000_000 / 4) {
+					addFound();
+					searchLabel.setText(searchProgress.toString());
+					lastUpdate = now;
 				}
-				polygons.add(rotatedPolygon);
 			}
+		};
 
-		}
-
-		System.out.printf("%,d polygons found.\n", polygons.size());
-
-	}
-
-	private void identifyCandidatePolygons(final Collection<Polygon> polygons, final List<Point> chosenPoints,
-			final SortedSet<Point> availablePoints) {
-
-		final Polygon polygon = new Polygon(chosenPoints);
-		if (chosenPoints.size() == VERTICES) {
-			// validity is expensive to compute - only bother if the polygon is not already
-			// present in the collection
-			if (!polygons.contains(polygon) && polygon.isValid()) {
-				polygons.add(polygon);
+		searching = true;
+		final ForkJoinPool pool = new ForkJoinPool();
+		final Thread searchThread = new Thread(() -> {
+			try {
+				new PolygonEnumerator(board, VERTICES, Mode.CANONICAL).visit(pool,
+						(vertices, count) -> found.add(board.getPolygon(vertices, count)), searchProgress);
+			} finally {
+				pool.shutdown();
+				Platform.runLater(() -> {
+					progressTimer.stop();
+					cancelButton.setDisable(true);
+					addFound();
+					searching = false;
+					if (searchProgress.isCancelled()) {
+						searchLabel.setText(String.format("search cancelled after %,d polygons", polygons.size()));
+						startIndexing(filterLabel, false);
+					} else {
+						startIndexing(filterLabel, true);
+						searchLabel.setText(String.format("%,d polygons found in %,d ms", polygons.size(),
+								searchProgress.getElapsedMillis()));
+					}
+				});
 			}
-		} else {
-
-			// check if the points so far form a valid (smaller) polygon - only recurse if
-			// so
-			if (chosenPoints.size() < 3 || polygon.isValid()) {
-				for (final Point availablePoint : availablePoints) {
-					final List<Point> nextChosenPoints = new ArrayList<>(chosenPoints);
-					nextChosenPoints.add(availablePoint);
-
-					final SortedSet<Point> nextAvailablePoints = new TreeSet<>(availablePoints);
-					nextAvailablePoints.remove(availablePoint);
+		}, "search");
+		searchThread.setDaemon(true);
+		progressTimer.start();
+		searchThread.start();
+	}
 
-					// recurse
-					identifyCandidatePolygons(polygons, nextChosenPoints, nextAvailablePoints);
+	// indexes the polygons on a thread of its own, as that takes a while for large
+	// results, once they have all been found or loaded. A search's polygons are
+	// first put into order there too, and shown in that order as soon as it is
+	// done, so the index is of the ordered list.
+	private void startIndexing(final Label filterLabel, final boolean order) {
+		final List<Polygon> unindexed = polygons;
+		filterLabel.setText(order ? "ordering..." : "indexing...");
+		final Thread indexThread = new Thread(() -> {
+			try {
+				final List<Polygon> indexed;
+				if (order) {
+					indexed = new ArrayList<>(new PolygonOrder(board).order(unindexed));
+					Platform.runLater(() -> {
+						polygons = indexed;
+						shown = indexed;
+						filterLabel.setText("indexing...");
+					});
+				} else {
+					indexed = unindexed;
 				}
+				// a loaded file is indexed from its records, without making every polygon
+				final PolygonIndex built = reader != null ? PolygonIndex.build(reader)
+						: PolygonIndex.build(board, indexed);
+				Platform.runLater(() -> {
+					index = built;
+					filterLabel.setText("");
+				});
+			} catch (final RuntimeException e) {
+				Platform.runLater(() -> filterLabel.setText("not indexed: " + e.getMessage()));
 			}
-		}
+		}, "index");
+		indexThread.setDaemon(true);
+		indexThread.start();
 	}
 
-	private Polygon rotatePolygon(final Polygon polygon) {
-		return new Polygon(polygon.getVertices().stream().map(this::rotate).collect(Collectors.toList()));
+	// shows just the polygons matching the query, returning whether it could
+	private boolean filter(final String query, final Label filterLabel) {
+		if (index == null) {
+			filterLabel.setText(searching ? "filter once the search is done" : "indexing...");
+			return false;
+		} else if (query.trim().isEmpty()) {
+			shown = polygons;
+			filterLabel.setText("");
+			return true;
+		}
+		try {
+			shown = PolygonIndex.select(polygons, index.query(query).matches());
+			filterLabel.setText(String.format("%,d of %,d", shown.size(), polygons.size()));
+			return true;
+		} catch (final IllegalArgumentException e) {
+			filterLabel.setText(e.getMessage());
+			return false;
+		}
 	}
 
-	private Point rotate(final Point p1) {
-
-		final int r1 = p1.getRow();
-		final int c1 = p1.getColumn();
-
-		final int r2 = c1;
-		final int c2 = SIZE - 1 - r1;
-
-		return new Point(r2, c2);
+	// every polygon shown so far as thumbnails, in a window of its own. While the
+	// search is running, that is those found so far, as they were when the gallery
+	// was opened.
+	private void showGallery() {
+		final GalleryView gallery = new GalleryView(board, GALLERY_TILE_SIZE);
+		gallery.setPolygons(searching ? new ArrayList<>(shown) : shown);
+
+		final Stage stage = new Stage();
+		stage.setTitle(String.format("%,d polygons", shown.size()));
+		stage.setScene(new Scene(gallery.getNode(), 1000, 800));
+		stage.setOnHidden(e -> gallery.shutdown());
+		stage.show();
 	}
 
-	static double round(final double d) {
-		return Math.round(100d * d) / 100d;
+	private void addFound() {
+		for (Polygon polygon = found.poll(); polygon != null; polygon = found.poll()) {
+			polygons.add(polygon);
+		}
 	}
 
 	private void drawCircles() {
-		for (int r = 0; r < SIZE; r++) {
-			for (int c = 0; c < SIZE; c++) {
-				final Point point = new Point(r, c);
-				if (validPoint(point)) {
-					pane.getChildren().add(getCircle(point, Color.RED, 50));
-				}
-			}
+		for (final Point point : board.getPoints()) {
+			pane.getChildren().add(getCircle(point, Color.RED, 50));
 		}
 	}
 
-	private Line getLine(final Point p1, final Point p2, final Color c) {
-
-		final Line line = new Line();
-		line.setStartX(pointToX(p1));
-		line.setStartY(pointToY(p1));
-		line.setEndX(pointToX(p2));
-		line.setEndY(pointToY(p2));
-		line.setStroke(c);
-		line.setStrokeWidth(20);
-		return line;
-
-	}
-
 	private Circle getCircle(final Point point, final Color color, final int diameter) {
 
 		final Circle circle = new Circle();
-		circle.setCenterX(cToX(point.getColumn()));
-		circle.setCenterY(rToY(point.getRow()));
+		circle.setCenterX(pointToX(point));
+		circle.setCenterY(pointToY(point));
 		circle.setRadius(diameter / 2);
 		circle.setFill(color);
 		return circle;
 	}
 
-	private int cToX(final int c) {
-		return 50 + c * 90;
+	// from the plane, as Lattice.getX and getY, to the pane
+	private int toX(final double x) {
+		return (int) Math.round(50 + x * 90);
 	}
 
-	private int rToY(final int r) {
-		return 50 + r * 90;
+	private int toY(final double y) {
+		return (int) Math.round(50 + y * 90);
 	}
 
 	private int pointToX(final Point point) {
-		return cToX(point.getColumn());
+		return toX(board.getLattice().getX(point));
 	}
 
 	private int pointToY(final Point point) {
-		return rToY(point.getRow());
+		return toY(board.getLattice().getY(point));
 	}
 
-	static int pToR(final int p) {
-		return p / SIZE;
+	// the controls are laid out on a grid to the right of the board
+	private int controlX(final int column) {
+		return toX(Math.ceil(board.getWidth()) + 1 + column);
 	}
 
-	static int pToC(final int p) {
-		return p % SIZE;
+	private int controlY(final int row) {
+		return toY(row);
 	}
 
-	public static void main(final String[] args) {
-		launch(args);
+	@Override
+	public void stop() throws IOException {
+		searchProgress.cancel();
+		if (reader != null) {
+			reader.close();
+		}
 	}
 
-	private boolean validPoint(final Point point) {
-		final int boundary = (SIZE - INNER_REMOVALS) / 2;
-		final int r = point.getRow();
-		final int c = point.getColumn();
-		return r < boundary || SIZE - 1 - r < boundary || c < boundary || SIZE - 1 - c < boundary;
+	public static void main(final String[] args) {
+		launch(args);
 	}
 
 }
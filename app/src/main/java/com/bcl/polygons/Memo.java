@@ -0,0 +1,48 @@
+package com.bcl.polygons;
+
+// Sentinels for values computed lazily and kept in a plain field of the object
+// they belong to, using the racy single-check idiom:
+//
+//	private int twiceArea = Memo.UNSET_INT;
+//
+//	public int getTwiceArea() {
+//		int value = twiceArea;
+//		if (value == Memo.UNSET_INT) {
+//			value = computeTwiceArea();
+//			twiceArea = value;
+//		}
+//		return value;
+//	}
+//
+// Threads that race may each compute the value, but they all compute the same
+// one, so that is only wasted work. This is safe for int, boolean (as a byte)
+// and references to objects whose fields are all final. Long and double fields,
+// and references to arrays or other mutable objects, must also be volatile so
+// that they are published whole. A value that happens to equal the sentinel is
+// just computed again each time.
+final class Memo {
+
+	static final int UNSET_INT = Integer.MIN_VALUE;
+	static final long UNSET_LONG = Long.MIN_VALUE;
+	static final double UNSET_DOUBLE = Double.NaN;
+
+	static final byte UNSET_BOOLEAN = 0;
+	private static final byte FALSE = 1;
+	private static final byte TRUE = 2;
+
+	private Memo() {
+	}
+
+	static boolean isUnset(final double value) {
+		return Double.isNaN(value);
+	}
+
+	static byte of(final boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	static boolean isTrue(final byte value) {
+		return value == TRUE;
+	}
+
+}
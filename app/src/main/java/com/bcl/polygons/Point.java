@@ -1,7 +1,6 @@
 package com.bcl.polygons;
 
 import java.util.Comparator;
-import java.util.Objects;
 
 public final class Point implements Comparable<Point> {
 
@@ -10,26 +9,20 @@ public final class Point implements Comparable<Point> {
 
 	private final int row;
 	private final int column;
-	
-    private Cached<Integer> hashCode = Cached.of(() -> Objects.hash(getRow(), getColumn()));
 
 	public Point(final int row, final int column) {
 		this.row = row;
 		this.column = column;
 	}
 
-	public Point(final int p) {
-		this.row = MainApp.pToR(p);
-		this.column = MainApp.pToC(p);
-	}
-
 	public Point subtract(final Point point) {
 		return new Point(this.row - point.row, this.column - point.column);
 	}
 
 	@Override
 	public int hashCode() {
-		return hashCode.get();
+		// as Objects.hash(row, column), without the varargs array
+		return 31 * (31 + row) + column;
 	}
 
 	@Override
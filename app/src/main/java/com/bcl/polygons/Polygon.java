@@ -1,17 +1,39 @@
 package com.bcl.polygons;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.bcl.polygons.SearchStats.Rejection;
+
 public final class Polygon {
 
 	private final List<Point> vertices;
 
-	private final Cached<List<Side>> sides = Cached.of(() -> {
+	// computed lazily, see Memo. The lists are immutable, so are safe to publish
+	// without volatile.
+	private List<Side> sides = null;
+	private List<AdjacentSides> adjacentSides = null;
+	private volatile long[] sidesKey = null;
+	private int twiceArea = Memo.UNSET_INT;
+	private byte isValid = Memo.UNSET_BOOLEAN;
+	private volatile long countRightAngles = Memo.UNSET_LONG;
+	private int countDistinctSides = Memo.UNSET_INT;
+
+	public Polygon(final List<Point> vertices) {
+		this.vertices = Collections.unmodifiableList(new ArrayList<>(vertices));
+	}
+
+	// with the sides already known, e.g. shared from the board
+	Polygon(final List<Point> vertices, final List<Side> sides) {
+		this(vertices);
+		this.sides = List.copyOf(sides);
+	}
+
+	private List<Side> computeSides() {
 		final List<Point> theVertices = getVertices();
 		final List<Side> sides = new ArrayList<>();
 		for (int i = 0; i < theVertices.size(); i++) {
@@ -20,11 +42,10 @@ public final class Polygon {
 			final Point vertex2 = theVertices.get(vertex2Index);
 			sides.add(new Side(vertex1, vertex2));
 		}
-		return sides;
-
-	});
+		return List.copyOf(sides);
+	}
 
-	private final Cached<List<AdjacentSides>> adjacentSides = Cached.of(() -> {
+	private List<AdjacentSides> computeAdjacentSides() {
 		// compute the adjacent sides
 		final List<AdjacentSides> adjacentSides = new ArrayList<>();
 		final List<Side> theSides = getSides();
@@ -34,65 +55,39 @@ public final class Polygon {
 			final Side side2 = theSides.get(side2Index);
 			adjacentSides.add(new AdjacentSides(side1, side2));
 		}
-		return adjacentSides;
-
-	});
-	private final Cached<Set<Side>> sidesSet = Cached.of(() -> new HashSet<>(getSides()));
-	private final Cached<Integer> twiceArea = Cached.of(() -> {
-
-		int accumulator = 0;
-		for (final Side side : getSides()) {
-			accumulator += side.getStart().getColumn() * side.getEnd().getRow()
-					- side.getStart().getRow() * side.getEnd().getColumn();
-		}
-
-		return Math.abs(accumulator);
-	});
-
-	private final Cached<Boolean> isValid = Cached.of(() -> {
-		if (getAdjacentSides().stream().anyMatch(AdjacentSides::isParallel)) {
-			// Check no two adjoining sides are in the same direction
-			return false;
-		}
-
-		// check pairs of non-adjacent sides to check they do not overlap or intersect
-		for (int i = 0; i < getSides().size(); i++) {
-			final Side side1 = getSides().get(i);
-			for (int j = i + 1; j < getSides().size(); j++) {
-				final Side side2 = getSides().get(j);
-				if (side2.isNonAdjacentTo(side1)) {
-					if (side1.projectionContains(side2.getStart())) {
-						// overlaps
-						return false;
-					} else if (side1.intersects(side2)) {
-						return false;
-					}
-				}
-			}
-		}
-
-		return true;
-	});
-
-	public Polygon(final List<Point> vertices) {
-		this.vertices = Collections.unmodifiableList(new ArrayList<>(vertices));
+		return List.copyOf(adjacentSides);
 	}
 
 	List<AdjacentSides> getAdjacentSides() {
-		return adjacentSides.get();
+		List<AdjacentSides> value = adjacentSides;
+		if (value == null) {
+			value = computeAdjacentSides();
+			adjacentSides = value;
+		}
+		return value;
 	}
 
 	List<Side> getSides() {
-		return sides.get();
+		List<Side> value = sides;
+		if (value == null) {
+			value = computeSides();
+			sides = value;
+		}
+		return value;
 	}
 
-	private Set<Side> getSidesSet() {
-		return sidesSet.get();
+	private long[] getSidesKey() {
+		long[] value = sidesKey;
+		if (value == null) {
+			value = PolygonKey.sides(getVertices());
+			sidesKey = value;
+		}
+		return value;
 	}
 
 	@Override
 	public int hashCode() {
-		return getSidesSet().hashCode();
+		return Arrays.hashCode(getSidesKey());
 	}
 
 	@Override
@@ -101,7 +96,7 @@ public final class Polygon {
 			final Polygon polygon = (Polygon) obj;
 			// check if this polygon has the same sides (regardless of direction) as the
 			// polygon passed in
-			return getSidesSet().equals(polygon.getSidesSet());
+			return Arrays.equals(getSidesKey(), polygon.getSidesKey());
 		} catch (final ClassCastException | NullPointerException e) {
 			return false;
 		}
@@ -116,18 +111,49 @@ public final class Polygon {
 		return vertices;
 	}
 
-	private final Cached<Long> countRightAngles = Cached
-			.of(() -> getAdjacentSides().stream().filter(AdjacentSides::isRightAngle).count());
+	// the vertices starting from the lowest, in the direction that visits the lower
+	// of its two neighbours first
+	List<Point> getCanonicalVertices() {
+		final int size = vertices.size();
+		int lowest = 0;
+		for (int i = 1; i < size; i++) {
+			if (vertices.get(i).compareTo(vertices.get(lowest)) < 0) {
+				lowest = i;
+			}
+		}
+		final Point next = vertices.get((lowest + 1) % size);
+		final Point previous = vertices.get((lowest + size - 1) % size);
+		final int step = next.compareTo(previous) <= 0 ? 1 : size - 1;
 
-	public long countRightAngles() {
-		return countRightAngles.get();
+		final List<Point> canonicalVertices = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			canonicalVertices.add(vertices.get((lowest + i * step) % size));
+		}
+		return canonicalVertices;
 	}
 
-	private final Cached<Integer> countDistinctSides = Cached
-			.of(() -> new HashSet<>(getSides().stream().map(Side::length).collect(Collectors.toList())).size());
+	public long countRightAngles() {
+		long value = countRightAngles;
+		if (SearchStats.ENABLED) {
+			SearchStats.memoLookup(value != Memo.UNSET_LONG);
+		}
+		if (value == Memo.UNSET_LONG) {
+			value = getAdjacentSides().stream().filter(AdjacentSides::isRightAngle).count();
+			countRightAngles = value;
+		}
+		return value;
+	}
 
 	public int countDistinctSides() {
-		return countDistinctSides.get();
+		int value = countDistinctSides;
+		if (SearchStats.ENABLED) {
+			SearchStats.memoLookup(value != Memo.UNSET_INT);
+		}
+		if (value == Memo.UNSET_INT) {
+			value = new HashSet<>(getSides().stream().map(Side::length).collect(Collectors.toList())).size();
+			countDistinctSides = value;
+		}
+		return value;
 	}
 
 	public double getArea() {
@@ -136,10 +162,65 @@ public final class Polygon {
 	}
 
 	public int getTwiceArea() {
-		return twiceArea.get();
+		int value = twiceArea;
+		if (SearchStats.ENABLED) {
+			SearchStats.memoLookup(value != Memo.UNSET_INT);
+		}
+		if (value == Memo.UNSET_INT) {
+			int accumulator = 0;
+			for (final Side side : getSides()) {
+				accumulator += side.getStart().getColumn() * side.getEnd().getRow()
+						- side.getStart().getRow() * side.getEnd().getColumn();
+			}
+			value = Math.abs(accumulator);
+			twiceArea = value;
+		}
+		return value;
 	}
 
 	public boolean isValid() {
-		return isValid.get();
+		byte value = isValid;
+		if (SearchStats.ENABLED) {
+			SearchStats.memoLookup(value != Memo.UNSET_BOOLEAN);
+		}
+		if (value == Memo.UNSET_BOOLEAN) {
+			value = Memo.of(computeIsValid());
+			isValid = value;
+		}
+		return Memo.isTrue(value);
+	}
+
+	private boolean computeIsValid() {
+		final Rejection rejection = findRejection();
+		if (SearchStats.ENABLED) {
+			SearchStats.checked(rejection);
+		}
+		return rejection == null;
+	}
+
+	// why the polygon isn't valid, or null if it is
+	private Rejection findRejection() {
+		if (getAdjacentSides().stream().anyMatch(AdjacentSides::isParallel)) {
+			// Check no two adjoining sides are in the same direction
+			return Rejection.PARALLEL_SIDES;
+		}
+
+		// check pairs of non-adjacent sides to check they do not overlap or intersect
+		for (int i = 0; i < getSides().size(); i++) {
+			final Side side1 = getSides().get(i);
+			for (int j = i + 1; j < getSides().size(); j++) {
+				final Side side2 = getSides().get(j);
+				if (side2.isNonAdjacentTo(side1)) {
+					if (side1.projectionContains(side2.getStart())) {
+						// overlaps
+						return Rejection.MEETING_SIDES;
+					} else if (side1.intersects(side2)) {
+						return Rejection.MEETING_SIDES;
+					}
+				}
+			}
+		}
+
+		return null;
 	}
 }
@@ -0,0 +1,439 @@
+package com.bcl.polygons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import com.bcl.polygons.SearchStats.Rejection;
+
+public final class PolygonEnumerator {
+
+	public enum Mode {
+		// every ordering of the vertices is searched, and the results are de-duplicated
+		ALL_ORDERINGS,
+		// only orderings starting from the lowest vertex, in one direction, are
+		// searched
+		CANONICAL,
+		// as CANONICAL, but only one polygon is reported for each set of polygons that
+		// are symmetries of each other - see expandOrbits
+		CANONICAL_ORBITS
+	}
+
+	// the search is split into separate tasks for each choice of the first
+	// SPLIT_DEPTH vertices; below that each task walks its subtree serially
+	private static final int SPLIT_DEPTH = 2;
+
+	private final Board board;
+	// polygons with from minVertices to vertices vertices are found
+	private final int minVertices;
+	private final int vertices;
+	private final Mode mode;
+	// null to search every subtree
+	private final Shard shard;
+	// built when the search first needs them, unless the board is too large
+	private CandidateMasks candidateMasks = null;
+
+	public PolygonEnumerator(final Board board, final int vertices, final Mode mode) {
+		this(board, vertices, mode, null);
+	}
+
+	// searches only the subtrees in the shard; the search over all orderings can
+	// find the same polygon in more than one shard
+	public PolygonEnumerator(final Board board, final int vertices, final Mode mode, final Shard shard) {
+		this(board, vertices, vertices, mode, shard);
+	}
+
+	// finds the polygons with each number of vertices from minVertices to vertices
+	// in one search, as the paths to the larger polygons pass through the smaller
+	// ones
+	public PolygonEnumerator(final Board board, final int minVertices, final int vertices, final Mode mode,
+			final Shard shard) {
+		if (minVertices < 3 || minVertices > vertices) {
+			throw new IllegalArgumentException("can't find polygons of " + minVertices + " to " + vertices + " vertices");
+		}
+		this.board = board;
+		this.minVertices = minVertices;
+		this.vertices = vertices;
+		this.mode = mode;
+		this.shard = shard;
+	}
+
+	public PolygonEnumerator(final Board board, final int vertices) {
+		this(board, vertices, Mode.ALL_ORDERINGS);
+	}
+
+	public Board getBoard() {
+		return board;
+	}
+
+	public int getMinVertices() {
+		return minVertices;
+	}
+
+	// the most vertices of the polygons found
+	public int getVertices() {
+		return vertices;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	// null if every subtree is searched
+	public Shard getShard() {
+		return shard;
+	}
+
+	public Set<Polygon> enumerate() {
+		return enumerate(ForkJoinPool.commonPool());
+	}
+
+	public Set<Polygon> enumerate(final ForkJoinPool pool) {
+		final Set<Polygon> polygons = ConcurrentHashMap.newKeySet();
+		forEach(pool, polygons::add);
+		return polygons;
+	}
+
+	public Set<Polygon> enumerateSerial() {
+		final Set<Polygon> polygons = new HashSet<>();
+		final PolygonVisitor visitor = deduplicate(
+				(foundVertices, count) -> polygons.add(board.getPolygon(foundVertices, count)));
+		identifyCandidatePolygons(visitor, new Search(new SearchProgress()));
+		return polygons;
+	}
+
+	// passes each polygon to the consumer as soon as it is found, without holding
+	// on to the results; the consumer is called from the pool's threads
+	public void forEach(final ForkJoinPool pool, final Consumer<Polygon> consumer) {
+		visit(pool, (foundVertices, count) -> consumer.accept(board.getPolygon(foundVertices, count)));
+	}
+
+	// as forEach, without creating any Polygon objects
+	public void visit(final ForkJoinPool pool, final PolygonVisitor visitor) {
+		visit(pool, visitor, new SearchProgress());
+	}
+
+	// as visit, reporting progress as it goes, and stopping early if the progress
+	// is cancelled
+	public void visit(final ForkJoinPool pool, final PolygonVisitor visitor, final SearchProgress progress) {
+		progress.start();
+		final SearchPhaseEvent event = new SearchPhaseEvent("search", board, vertices);
+		try {
+			pool.invoke(new SearchTask(progress.counting(deduplicate(visitor)), new Search(progress), null));
+		} finally {
+			event.commit();
+		}
+	}
+
+	// as visit, first passing on the polygons of the subtrees the checkpoint has
+	// finished, then searching only the rest and adding them to the checkpoint as
+	// they finish
+	public void visit(final ForkJoinPool pool, final PolygonVisitor visitor, final SearchProgress progress,
+			final SearchCheckpoint checkpoint) {
+		if (mode == Mode.ALL_ORDERINGS) {
+			throw new IllegalArgumentException("only the canonical modes can be checkpointed");
+		}
+		progress.start();
+		final PolygonVisitor counting = progress.counting(visitor);
+		checkpoint.replay(counting);
+		final SearchPhaseEvent event = new SearchPhaseEvent("search", board, vertices);
+		try {
+			pool.invoke(new SearchTask(counting, new Search(progress), checkpoint));
+		} finally {
+			event.commit();
+		}
+	}
+
+	// the canonical modes find each polygon once, in canonical order; the search
+	// over all orderings finds it several times, in any order
+	private PolygonVisitor deduplicate(final PolygonVisitor visitor) {
+		if (mode != Mode.ALL_ORDERINGS) {
+			return visitor;
+		}
+
+		// the canonical vertices are packed into one long key, or two for larger
+		// boards, and the keys kept in a primitive set
+		final int pointCount = board.getPointCount();
+		final int words = PolygonKey.words(pointCount, vertices);
+		if (words > 2) {
+			throw new IllegalStateException(
+					String.format("%d vertices on a board of %d points needs a canonical mode", vertices, pointCount));
+		}
+		final int bitsPerVertex = PolygonKey.bitsPerVertex(pointCount);
+		final int perWord = PolygonKey.verticesPerWord(pointCount);
+		// keys of polygons with different numbers of vertices can be the same, so each
+		// number has its own set
+		final LongHashSet[] found = new LongHashSet[vertices + 1];
+		for (int count = minVertices; count <= vertices; count++) {
+			found[count] = new LongHashSet(words);
+		}
+		final ThreadLocal<int[]> canonicalVertices = ThreadLocal.withInitial(() -> new int[vertices]);
+		return (foundVertices, count) -> {
+			final int[] canonical = canonicalVertices.get();
+			PolygonKey.canonicalize(foundVertices, count, canonical);
+			final int split = Math.min(count, perWord);
+			if (found[count].add(PolygonKey.pack(canonical, 0, split, bitsPerVertex),
+					PolygonKey.pack(canonical, split, count, bitsPerVertex))) {
+				visitor.visit(canonical, count);
+			} else if (SearchStats.ENABLED) {
+				SearchStats.dedupHit();
+			}
+		};
+	}
+
+	// all the symmetries of the given polygon that the search would have found
+	public Set<Polygon> expandOrbit(final Polygon polygon) {
+		final SearchPath scratch = new SearchPath(board, polygon.getVertices().size());
+		final Set<Polygon> orbit = new HashSet<>();
+		for (final Symmetry symmetry : board.getSymmetries()) {
+			final Polygon image = symmetry.apply(polygon);
+			if (!orbit.contains(image) && isFoundBySearch(scratch, image.getVertices())) {
+				orbit.add(image);
+			}
+		}
+		return orbit;
+	}
+
+	public Set<Polygon> expandOrbits(final Collection<Polygon> polygons) {
+		final SearchPhaseEvent event = new SearchPhaseEvent("orbit expansion", board, vertices);
+		final Set<Polygon> expanded = new HashSet<>();
+		for (final Polygon polygon : polygons) {
+			expanded.addAll(expandOrbit(polygon));
+		}
+		event.commit();
+		return expanded;
+	}
+
+	// the search over all orderings checks each ordering as it stands, so its
+	// masks are for vertices kept in order
+	private synchronized CandidateMasks getCandidateMasks() {
+		if (candidateMasks == null && CandidateMasks.fits(board)) {
+			final SearchPhaseEvent event = new SearchPhaseEvent("point setup", board, vertices);
+			candidateMasks = CandidateMasks.build(board, mode == Mode.ALL_ORDERINGS);
+			event.commit();
+		}
+		return candidateMasks;
+	}
+
+	// the state of one serial walk of the search tree: the path is extended and
+	// restored as the search goes down and back up, and the scratch path and
+	// arrays are for checking symmetries of polygons found
+	private final class Search {
+		private final SearchPath path;
+		private final SearchPath scratch = new SearchPath(board, vertices);
+		private final int[] canonical = new int[vertices];
+		private final int[] image = new int[vertices];
+		private final int[] imageCanonical = new int[vertices];
+		private final SearchProgress progress;
+
+		Search(final SearchProgress progress) {
+			this(new SearchPath(board, vertices, getCandidateMasks()), progress);
+		}
+
+		Search(final SearchPath path, final SearchProgress progress) {
+			this.path = path;
+			this.progress = progress;
+		}
+	}
+
+	private final class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final PolygonVisitor visitor;
+		private final Search search;
+		// null unless the search is checkpointed
+		private final SearchCheckpoint checkpoint;
+
+		SearchTask(final PolygonVisitor visitor, final Search search, final SearchCheckpoint checkpoint) {
+			this.visitor = visitor;
+			this.search = search;
+			this.checkpoint = checkpoint;
+		}
+
+		@Override
+		protected void compute() {
+			final SearchPath path = search.path;
+			if (path.size() >= Math.min(SPLIT_DEPTH, vertices - 1)) {
+				final long subtree = subtreeOf(path);
+				if (shard != null && !shard.contains(subtree)) {
+					// another shard's
+				} else if (checkpoint == null) {
+					identifyCandidatePolygons(visitor, search);
+				} else {
+					searchCheckpointed(subtree);
+				}
+				search.progress.subtreeDone();
+				return;
+			}
+
+			// the split depth is below 3 vertices, so there is no partial polygon to
+			// check yet - fork a task for each choice of the next vertex
+			final List<SearchTask> tasks = new ArrayList<>();
+			path.findCandidates();
+			for (int point = path.nextCandidate(firstCandidate(path)); point >= 0; point = path
+					.nextCandidate(point + 1)) {
+				final SearchPath nextPath = path.copy();
+				nextPath.push(point);
+
+				tasks.add(new SearchTask(visitor, new Search(nextPath, search.progress), checkpoint));
+			}
+			if (path.size() + 1 >= Math.min(SPLIT_DEPTH, vertices - 1)) {
+				search.progress.addSubtrees(tasks.size());
+			}
+			invokeAll(tasks);
+		}
+
+		// a subtree cut short by cancelling isn't finished, so is searched again when
+		// the search carries on from the checkpoint
+		private void searchCheckpointed(final long subtree) {
+			if (checkpoint.isFinished(subtree)) {
+				return;
+			}
+			final SearchCheckpoint.Subtree found = checkpoint.startSubtree(subtree);
+			identifyCandidatePolygons((foundVertices, count) -> {
+				found.visit(foundVertices, count);
+				visitor.visit(foundVertices, count);
+			}, search);
+			if (!search.progress.isCancelled()) {
+				found.finish();
+			}
+		}
+	}
+
+	// the number of the subtree below the first vertices on the path, which is the
+	// same however the search is run
+	private long subtreeOf(final SearchPath path) {
+		long subtree = 0;
+		for (int i = 0; i < path.size(); i++) {
+			subtree = subtree * board.getPointCount() + path.getIndex(i);
+		}
+		return subtree;
+	}
+
+	// the points not on the path are the ones still available, so going down and
+	// back up the tree only pushes and pops the path
+	private void identifyCandidatePolygons(final PolygonVisitor visitor, final Search search) {
+
+		final SearchPath path = search.path;
+		if (SearchStats.ENABLED) {
+			SearchStats.nodeVisited();
+		}
+		if (search.progress.isCancelled()) {
+			return;
+		} else if (path.size() == vertices) {
+			visitIfFound(visitor, search);
+		} else {
+			if (path.size() >= minVertices && isInSearchDirection(path)) {
+				visitIfFound(visitor, search);
+			}
+			if (isWorthExtending(path)) {
+				path.findCandidates();
+				for (int point = path.nextCandidate(firstCandidate(path)); point >= 0; point = path
+						.nextCandidate(point + 1)) {
+					path.push(point);
+
+					// recurse
+					identifyCandidatePolygons(visitor, search);
+
+					path.pop();
+				}
+			}
+		}
+	}
+
+	// the lowest board index that can be the next vertex; any free point after it
+	// can be too
+	private int firstCandidate(final SearchPath path) {
+		if (mode == Mode.ALL_ORDERINGS || path.size() == 0) {
+			return 0;
+		}
+
+		// every later vertex comes after the first, and the direction is fixed by the
+		// last vertex coming after the second
+		return path.size() == vertices - 1 && path.size() > 1 ? path.getIndex(1) : path.getIndex(0);
+	}
+
+	// the canonical search only goes one way round each polygon by choosing the last
+	// vertex after the second, which polygons closed before the last vertex must be
+	// checked for
+	private boolean isInSearchDirection(final SearchPath path) {
+		return mode == Mode.ALL_ORDERINGS || path.getIndex(path.size() - 1) > path.getIndex(1);
+	}
+
+	private boolean isWorthExtending(final SearchPath path) {
+		if (path.size() < 3) {
+			return true;
+		}
+
+		if (mode == Mode.ALL_ORDERINGS) {
+			// check if the points so far form a valid (smaller) polygon - only recurse if
+			// so
+			return path.isValidWhenClosed();
+		}
+
+		// an ordering other than the canonical one may find the polygon, so only reject
+		// the points so far for problems that every ordering would hit
+		return path.isViable();
+	}
+
+	private void visitIfFound(final PolygonVisitor visitor, final Search search) {
+		final SearchPath path = search.path;
+		if (mode == Mode.ALL_ORDERINGS) {
+			if (path.isValidWhenClosed()) {
+				path.visit(visitor);
+			}
+		} else if (path.isFoundBySearch()) {
+			if (mode == Mode.CANONICAL || isOrbitRepresentative(search)) {
+				path.visit(visitor);
+			}
+		}
+	}
+
+	private static boolean isFoundBySearch(final SearchPath scratch, final List<Point> polygonVertices) {
+		scratch.clear();
+		for (final Point vertex : polygonVertices) {
+			scratch.push(vertex);
+		}
+		return scratch.isFoundBySearch();
+	}
+
+	private static boolean isFoundBySearch(final SearchPath scratch, final int[] polygonVertices, final int count) {
+		scratch.clear();
+		for (int i = 0; i < count; i++) {
+			scratch.push(polygonVertices[i]);
+		}
+		return scratch.isFoundBySearch();
+	}
+
+	// the representative of each orbit is the one with the lowest canonical vertices
+	// amongst the symmetries that the search would have found. Point indices are in
+	// point order, so the vertices are compared as indices.
+	private boolean isOrbitRepresentative(final Search search) {
+		final int count = search.path.size();
+		search.path.canonicalize(search.canonical);
+		for (final Symmetry symmetry : board.getSymmetries()) {
+			symmetry.apply(search.canonical, count, search.image);
+			PolygonKey.canonicalize(search.image, count, search.imageCanonical);
+			if (Arrays.compare(search.imageCanonical, 0, count, search.canonical, 0, count) < 0
+					&& isFoundBySearch(search.scratch, search.imageCanonical, count)) {
+				if (SearchStats.ENABLED) {
+					SearchStats.checked(Rejection.NOT_ORBIT_REPRESENTATIVE);
+				}
+				return false;
+			}
+		}
+		if (SearchStats.ENABLED) {
+			SearchStats.checked(null);
+		}
+		return true;
+	}
+
+}
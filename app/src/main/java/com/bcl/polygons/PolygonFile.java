@@ -0,0 +1,139 @@
+package com.bcl.polygons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// The binary format for a set of enumeration results:
+//
+// header, Header.size() bytes:
+//   int    MAGIC
+//   int    VERSION
+//   int    vertices per polygon
+//   int    record width in bytes
+//   long   number of records
+//   int    length of the board's pattern in bytes
+//   byte[] the board's pattern, as Board.toPattern, in UTF-8
+//
+// then fixed-width records, one per polygon:
+//   short  board point index of each vertex, in canonical order
+//   int    twice the area
+//   short  right angles
+//   short  distinct side lengths
+//
+// All values are big-endian. Version 1 files, from before boards had shapes,
+// have a square board's size and inner removals in place of the vertices, record
+// width and count, which follow them, and no pattern.
+final class PolygonFile {
+
+	static final int MAGIC = 0x504c5947; // "PLYG"
+	static final int VERSION = 2;
+	// the vertices are unsigned shorts, so can index no more points than this
+	static final int MAX_POINTS = 1 << 16;
+	// up to the pattern
+	private static final int FIXED_HEADER_SIZE = 28;
+	private static final int VERSION_1_HEADER_SIZE = 32;
+
+	private PolygonFile() {
+	}
+
+	static int recordWidth(final int vertices) {
+		return vertices * Short.BYTES + Integer.BYTES + 2 * Short.BYTES;
+	}
+
+	static final class Header {
+		final Board board;
+		final int vertices;
+		final long count;
+		private final byte[] pattern;
+		private final int size;
+
+		Header(final Board board, final int vertices, final long count) {
+			this(board, vertices, count, board.toPattern().getBytes(StandardCharsets.UTF_8).length
+					+ FIXED_HEADER_SIZE);
+		}
+
+		private Header(final Board board, final int vertices, final long count, final int size) {
+			this.board = board;
+			this.vertices = vertices;
+			this.count = count;
+			this.pattern = board.toPattern().getBytes(StandardCharsets.UTF_8);
+			this.size = size;
+		}
+
+		// where the records start
+		int size() {
+			return size;
+		}
+
+		void write(final FileChannel channel) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.allocate(FIXED_HEADER_SIZE + pattern.length)
+					.order(ByteOrder.BIG_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(vertices).putInt(recordWidth(vertices)).putLong(count)
+					.putInt(pattern.length).put(pattern);
+			buffer.flip();
+			long position = 0;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+		}
+
+		static Header read(final FileChannel channel) throws IOException {
+			final ByteBuffer start = read(channel, 0, 2 * Integer.BYTES);
+			if (start.getInt() != MAGIC) {
+				throw new IOException("not a polygon file");
+			}
+			final int version = start.getInt();
+			if (version == 1) {
+				final ByteBuffer buffer = read(channel, 2 * Integer.BYTES, VERSION_1_HEADER_SIZE - 2 * Integer.BYTES);
+				final Board board = Board.square(buffer.getInt(), buffer.getInt());
+				final int vertices = readVertices(buffer);
+				return new Header(board, vertices, buffer.getLong(), VERSION_1_HEADER_SIZE);
+			} else if (version != VERSION) {
+				throw new IOException("unsupported polygon file version " + version);
+			}
+
+			final ByteBuffer buffer = read(channel, 2 * Integer.BYTES, FIXED_HEADER_SIZE - 2 * Integer.BYTES);
+			final int vertices = readVertices(buffer);
+			final long count = buffer.getLong();
+			final int patternLength = buffer.getInt();
+			if (patternLength < 0 || FIXED_HEADER_SIZE + (long) patternLength > channel.size()) {
+				throw new IOException("truncated header");
+			}
+			final ByteBuffer pattern = read(channel, FIXED_HEADER_SIZE, patternLength);
+			final Board board;
+			try {
+				board = Board.parse(StandardCharsets.UTF_8.decode(pattern).toString());
+			} catch (final IllegalArgumentException e) {
+				throw new IOException("bad board: " + e.getMessage(), e);
+			}
+			return new Header(board, vertices, count, FIXED_HEADER_SIZE + patternLength);
+		}
+
+		private static int readVertices(final ByteBuffer buffer) throws IOException {
+			final int vertices = buffer.getInt();
+			if (buffer.getInt() != recordWidth(vertices)) {
+				throw new IOException("unexpected record width");
+			}
+			return vertices;
+		}
+
+		private static ByteBuffer read(final FileChannel channel, final long from, final int length)
+				throws IOException {
+			final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+			long position = from;
+			while (buffer.hasRemaining()) {
+				final int read = channel.read(buffer, position);
+				if (read < 0) {
+					throw new IOException("truncated header");
+				}
+				position += read;
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+}
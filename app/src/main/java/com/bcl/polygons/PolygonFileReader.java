@@ -0,0 +1,126 @@
+package com.bcl.polygons;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+// Reads a file in the PolygonFile format by memory-mapping it, so opening it
+// costs nothing per record and records are only decoded when asked for
+public final class PolygonFileReader implements Closeable {
+
+	// each mapping is limited to 2GB, so the records are mapped in segments of
+	// whole records
+	private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	private final FileChannel channel;
+	private final Board board;
+	private final int vertices;
+	private final long count;
+	private final int recordWidth;
+	private final long recordsPerSegment;
+	private final MappedByteBuffer[] segments;
+
+	public PolygonFileReader(final Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			final PolygonFile.Header header = PolygonFile.Header.read(channel);
+			board = header.board;
+			vertices = header.vertices;
+			count = header.count;
+			recordWidth = PolygonFile.recordWidth(vertices);
+
+			if (channel.size() < header.size() + count * recordWidth) {
+				throw new IOException("truncated polygon file");
+			}
+
+			recordsPerSegment = MAX_SEGMENT_SIZE / recordWidth;
+			final int segmentCount = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+			segments = new MappedByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				final long first = i * recordsPerSegment;
+				final long records = Math.min(recordsPerSegment, count - first);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						header.size() + first * recordWidth, records * recordWidth);
+				segments[i].order(ByteOrder.BIG_ENDIAN);
+			}
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public Board getBoard() {
+		return board;
+	}
+
+	public int getVertices() {
+		return vertices;
+	}
+
+	public long size() {
+		return count;
+	}
+
+	private MappedByteBuffer segment(final long record) {
+		return segments[(int) (record / recordsPerSegment)];
+	}
+
+	private int offset(final long record) {
+		return (int) (record % recordsPerSegment) * recordWidth;
+	}
+
+	public int getVertex(final long record, final int vertex) {
+		return Short.toUnsignedInt(segment(record).getShort(offset(record) + vertex * Short.BYTES));
+	}
+
+	public void getVertices(final long record, final int[] polygonVertices) {
+		for (int i = 0; i < vertices; i++) {
+			polygonVertices[i] = getVertex(record, i);
+		}
+	}
+
+	public int getTwiceArea(final long record) {
+		return segment(record).getInt(offset(record) + vertices * Short.BYTES);
+	}
+
+	public int getRightAngles(final long record) {
+		return segment(record).getShort(offset(record) + vertices * Short.BYTES + Integer.BYTES);
+	}
+
+	public int getDistinctSides(final long record) {
+		return segment(record).getShort(offset(record) + vertices * Short.BYTES + Integer.BYTES + Short.BYTES);
+	}
+
+	public Polygon getPolygon(final long record) {
+		final int[] polygonVertices = new int[vertices];
+		getVertices(record, polygonVertices);
+		return board.getPolygon(polygonVertices, vertices);
+	}
+
+	// a read-only view of the records that decodes each polygon as it is asked for
+	public List<Polygon> asList() {
+		return new AbstractList<Polygon>() {
+			@Override
+			public Polygon get(final int index) {
+				return getPolygon(index);
+			}
+
+			@Override
+			public int size() {
+				return (int) Math.min(count, Integer.MAX_VALUE);
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.bcl.polygons;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Writes results in the PolygonFile format. The record count in the header is
+// filled in on close.
+public final class PolygonFileWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Board board;
+	private final int vertices;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.BIG_ENDIAN);
+	private long count = 0;
+
+	public PolygonFileWriter(final Path path, final Board board, final int vertices) throws IOException {
+		if (board.getPointCount() > PolygonFile.MAX_POINTS) {
+			throw new IllegalArgumentException(String.format("a result file can't hold a board of more than %,d points",
+					PolygonFile.MAX_POINTS));
+		} else if (vertices <= 0 || vertices > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("can't write polygons of " + vertices + " vertices");
+		}
+		this.board = board;
+		this.vertices = vertices;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(new PolygonFile.Header(board, vertices, 0).size());
+	}
+
+	// the vertices are board point indices in canonical order
+	public void write(final int[] polygonVertices, final int twiceArea, final int rightAngles,
+			final int distinctSides) throws IOException {
+		for (int i = 0; i < vertices; i++) {
+			if (polygonVertices[i] < 0 || polygonVertices[i] >= board.getPointCount()) {
+				throw new IllegalArgumentException("no point " + polygonVertices[i] + " on " + board);
+			}
+		}
+		if (buffer.remaining() < PolygonFile.recordWidth(vertices)) {
+			flush();
+		}
+		for (int i = 0; i < vertices; i++) {
+			buffer.putShort((short) polygonVertices[i]);
+		}
+		buffer.putInt(twiceArea);
+		buffer.putShort((short) rightAngles);
+		buffer.putShort((short) distinctSides);
+		count++;
+	}
+
+	public void write(final Polygon polygon) throws IOException {
+		final List<Point> canonicalVertices = polygon.getCanonicalVertices();
+		if (canonicalVertices.size() != vertices) {
+			throw new IllegalArgumentException(polygon + " doesn't have " + vertices + " vertices");
+		}
+		final int[] polygonVertices = new int[vertices];
+		int i = 0;
+		for (final Point vertex : canonicalVertices) {
+			polygonVertices[i] = board.indexOf(vertex);
+			if (polygonVertices[i] < 0) {
+				throw new IllegalArgumentException(polygon + " is not on " + board);
+			}
+			i++;
+		}
+		write(polygonVertices, polygon.getTwiceArea(), (int) polygon.countRightAngles(),
+				polygon.countDistinctSides());
+	}
+
+	public void write(final PolygonRecord record) throws IOException {
+		final int[] polygonVertices = new int[vertices];
+		PolygonKey.unpack(record.getKey(), vertices, PolygonKey.bitsPerVertex(board.getPointCount()),
+				polygonVertices);
+		write(polygonVertices, record.getTwiceArea(), record.getRightAngles(), record.getDistinctSides());
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			new PolygonFile.Header(board, vertices, count).write(channel);
+		} finally {
+			channel.close();
+		}
+	}
+
+}
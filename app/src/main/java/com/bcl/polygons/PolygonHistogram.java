@@ -0,0 +1,133 @@
+package com.bcl.polygons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Counts of polygons by twice the area, right angles and distinct side lengths -
+// the values PolygonOrder sorts by - without holding on to the polygons. As a
+// visitor it works out each polygon's values from its vertex indices, and each
+// thread adds to its own array of counts, which are only summed when read.
+public final class PolygonHistogram implements PolygonVisitor {
+
+	private final Board board;
+	private final int vertices;
+	private final int maxTwiceArea;
+	// the number of counts, see index
+	private final int bucketCount;
+	private final ConcurrentLinkedQueue<Counts> allCounts = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<Counts> threadCounts = ThreadLocal.withInitial(this::newCounts);
+
+	private final class Counts {
+		private final long[] buckets = new long[bucketCount];
+		private final int[] rows = new int[vertices];
+		private final int[] columns = new int[vertices];
+	}
+
+	public static final class Bucket {
+		private final int twiceArea;
+		private final int rightAngles;
+		private final int distinctSides;
+		private final long count;
+
+		Bucket(final int twiceArea, final int rightAngles, final int distinctSides, final long count) {
+			this.twiceArea = twiceArea;
+			this.rightAngles = rightAngles;
+			this.distinctSides = distinctSides;
+			this.count = count;
+		}
+
+		public int getTwiceArea() {
+			return twiceArea;
+		}
+
+		public int getRightAngles() {
+			return rightAngles;
+		}
+
+		public int getDistinctSides() {
+			return distinctSides;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d\t%d\t%d\t%d", twiceArea, rightAngles, distinctSides, count);
+		}
+	}
+
+	public PolygonHistogram(final Board board, final int vertices) {
+		this.board = board;
+		this.vertices = vertices;
+		// a polygon is no larger than the rectangle around the board
+		this.maxTwiceArea = 2 * (board.getRows() - 1) * (board.getColumns() - 1);
+		this.bucketCount = index(maxTwiceArea + 1, 0, 0);
+	}
+
+	private int index(final int twiceArea, final int rightAngles, final int distinctSides) {
+		return (twiceArea * (vertices + 1) + rightAngles) * (vertices + 1) + distinctSides;
+	}
+
+	private Counts newCounts() {
+		final Counts counts = new Counts();
+		allCounts.add(counts);
+		return counts;
+	}
+
+	@Override
+	public void visit(final int[] polygonVertices, final int count) {
+		final Counts counts = threadCounts.get();
+		for (int i = 0; i < count; i++) {
+			final Point vertex = board.getPoint(polygonVertices[i]);
+			counts.rows[i] = vertex.getRow();
+			counts.columns[i] = vertex.getColumn();
+		}
+		final int twiceArea = GeometryKernel.twiceArea(counts.rows, counts.columns, count);
+		final int rightAngles = GeometryKernel.countRightAngles(board.getLattice(), counts.rows, counts.columns,
+				count);
+		final int distinctSides = GeometryKernel.countDistinctSides(board.getLattice(), counts.rows,
+				counts.columns, count);
+		counts.buckets[index(twiceArea, rightAngles, distinctSides)]++;
+	}
+
+	// the counts so far from every thread, which must have finished visiting
+	private long[] sum() {
+		final long[] total = new long[bucketCount];
+		for (final Counts counts : allCounts) {
+			for (int i = 0; i < bucketCount; i++) {
+				total[i] += counts.buckets[i];
+			}
+		}
+		return total;
+	}
+
+	public long getTotal() {
+		long total = 0;
+		for (final long count : sum()) {
+			total += count;
+		}
+		return total;
+	}
+
+	// the buckets with polygons in, in PolygonOrder's order: largest first, then
+	// most right angles, then fewest distinct sides
+	public List<Bucket> getBuckets() {
+		final long[] total = sum();
+		final List<Bucket> buckets = new ArrayList<>();
+		for (int twiceArea = maxTwiceArea; twiceArea >= 0; twiceArea--) {
+			for (int rightAngles = vertices; rightAngles >= 0; rightAngles--) {
+				for (int distinctSides = 0; distinctSides <= vertices; distinctSides++) {
+					final long count = total[index(twiceArea, rightAngles, distinctSides)];
+					if (count > 0) {
+						buckets.add(new Bucket(twiceArea, rightAngles, distinctSides, count));
+					}
+				}
+			}
+		}
+		return buckets;
+	}
+
+}
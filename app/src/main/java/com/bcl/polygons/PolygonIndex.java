@@ -0,0 +1,312 @@
+package com.bcl.polygons;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Indexes over a list of results, for finding the polygons with given values, or
+// that use a given point or side, without going through the whole list. Each of
+// the values - twice the area, right angles and distinct sides - is a sorted
+// column of its distinct values with the positions of the polygons that have
+// each, and each point and side has the positions of the polygons using it. All
+// the positions are held as CompressedBitmaps, so a Query just joins and
+// intersects them. The index doesn't change, so is for a finished list.
+public final class PolygonIndex {
+
+	private final Board board;
+	private final int size;
+	private final Column twiceAreas;
+	private final Column rightAngles;
+	private final Column distinctSides;
+	// by board point index
+	private final CompressedBitmap[] byPoint;
+	// by sideKey, for the sides some polygon has
+	private final Map<Long, CompressedBitmap> bySide;
+
+	// the distinct values of one of the polygons' values, ascending, and the
+	// positions of the polygons with each
+	private static final class Column {
+		private final int[] values;
+		private final CompressedBitmap[] positions;
+
+		Column(final TreeMap<Integer, CompressedBitmap.Builder> builders) {
+			values = new int[builders.size()];
+			positions = new CompressedBitmap[builders.size()];
+			int i = 0;
+			for (final Map.Entry<Integer, CompressedBitmap.Builder> entry : builders.entrySet()) {
+				values[i] = entry.getKey();
+				positions[i] = entry.getValue().build();
+				i++;
+			}
+		}
+
+		// the polygons with values from min to max inclusive
+		CompressedBitmap between(final int min, final int max) {
+			final int from = lowerBound(min);
+			int to = from;
+			while (to < values.length && values[to] <= max) {
+				to++;
+			}
+			return CompressedBitmap.or(positions, from, to);
+		}
+
+		// the first value no less than the given one
+		private int lowerBound(final int value) {
+			int low = 0;
+			int high = values.length;
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+				if (values[middle] < value) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+
+	// gathers the positions, which must be added in order
+	private static final class Indexer {
+		private final Board board;
+		private final TreeMap<Integer, CompressedBitmap.Builder> twiceAreas = new TreeMap<>();
+		private final TreeMap<Integer, CompressedBitmap.Builder> rightAngles = new TreeMap<>();
+		private final TreeMap<Integer, CompressedBitmap.Builder> distinctSides = new TreeMap<>();
+		private final CompressedBitmap.Builder[] byPoint;
+		private final Map<Long, CompressedBitmap.Builder> bySide = new HashMap<>();
+		private int size = 0;
+
+		Indexer(final Board board) {
+			this.board = board;
+			byPoint = new CompressedBitmap.Builder[board.getPointCount()];
+		}
+
+		// the vertices are board point indices, in order round the polygon
+		void add(final int twiceArea, final int rightAngleCount, final int distinctSideCount, final int[] vertices,
+				final int count) {
+			final int position = size++;
+			twiceAreas.computeIfAbsent(twiceArea, value -> new CompressedBitmap.Builder()).add(position);
+			rightAngles.computeIfAbsent(rightAngleCount, value -> new CompressedBitmap.Builder()).add(position);
+			distinctSides.computeIfAbsent(distinctSideCount, value -> new CompressedBitmap.Builder()).add(position);
+			for (int i = 0; i < count; i++) {
+				if (byPoint[vertices[i]] == null) {
+					byPoint[vertices[i]] = new CompressedBitmap.Builder();
+				}
+				byPoint[vertices[i]].add(position);
+				bySide.computeIfAbsent(sideKey(board, vertices[i], vertices[(i + 1) % count]),
+						key -> new CompressedBitmap.Builder()).add(position);
+			}
+		}
+
+		PolygonIndex build() {
+			final CompressedBitmap[] points = new CompressedBitmap[byPoint.length];
+			for (int i = 0; i < points.length; i++) {
+				points[i] = byPoint[i] == null ? CompressedBitmap.EMPTY : byPoint[i].build();
+			}
+			final Map<Long, CompressedBitmap> sides = new HashMap<>();
+			bySide.forEach((key, builder) -> sides.put(key, builder.build()));
+			return new PolygonIndex(board, size, new Column(twiceAreas), new Column(rightAngles),
+					new Column(distinctSides), points, sides);
+		}
+	}
+
+	private PolygonIndex(final Board board, final int size, final Column twiceAreas, final Column rightAngles,
+			final Column distinctSides, final CompressedBitmap[] byPoint, final Map<Long, CompressedBitmap> bySide) {
+		this.board = board;
+		this.size = size;
+		this.twiceAreas = twiceAreas;
+		this.rightAngles = rightAngles;
+		this.distinctSides = distinctSides;
+		this.byPoint = byPoint;
+		this.bySide = bySide;
+	}
+
+	// the polygons, which must be on the board, indexed by their positions in the
+	// list
+	public static PolygonIndex build(final Board board, final List<Polygon> polygons) {
+		final Indexer indexer = new Indexer(board);
+		int[] vertices = new int[0];
+		for (final Polygon polygon : polygons) {
+			final List<Point> polygonVertices = polygon.getVertices();
+			if (vertices.length < polygonVertices.size()) {
+				vertices = new int[polygonVertices.size()];
+			}
+			for (int i = 0; i < polygonVertices.size(); i++) {
+				vertices[i] = board.indexOf(polygonVertices.get(i));
+				if (vertices[i] < 0) {
+					throw new IllegalArgumentException(polygon + " is not on " + board);
+				}
+			}
+			indexer.add(polygon.getTwiceArea(), (int) polygon.countRightAngles(), polygon.countDistinctSides(),
+					vertices, polygonVertices.size());
+		}
+		return indexer.build();
+	}
+
+	// the records of a result file, indexed by their positions in the file, without
+	// making a Polygon of each
+	public static PolygonIndex build(final PolygonFileReader reader) {
+		final Indexer indexer = new Indexer(reader.getBoard());
+		final int[] vertices = new int[reader.getVertices()];
+		for (long i = 0; i < reader.size(); i++) {
+			reader.getVertices(i, vertices);
+			indexer.add(reader.getTwiceArea(i), reader.getRightAngles(i), reader.getDistinctSides(i), vertices,
+					vertices.length);
+		}
+		return indexer.build();
+	}
+
+	private static long sideKey(final Board board, final int index1, final int index2) {
+		return (long) Math.min(index1, index2) * board.getPointCount() + Math.max(index1, index2);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Query query() {
+		return new Query();
+	}
+
+	// the polygons whose positions are given, in order, as a view of the list
+	public static List<Polygon> select(final List<Polygon> polygons, final CompressedBitmap positions) {
+		final int[] selected = positions.toArray();
+		return new AbstractList<Polygon>() {
+			@Override
+			public Polygon get(final int index) {
+				return polygons.get(selected[index]);
+			}
+
+			@Override
+			public int size() {
+				return selected.length;
+			}
+		};
+	}
+
+	// the polygons meeting every condition given; with no conditions, all of them
+	public final class Query {
+		private final List<CompressedBitmap> conditions = new ArrayList<>();
+
+		private Query() {
+		}
+
+		// from min to max inclusive
+		public Query twiceArea(final int min, final int max) {
+			conditions.add(twiceAreas.between(min, max));
+			return this;
+		}
+
+		public Query rightAngles(final int min, final int max) {
+			conditions.add(rightAngles.between(min, max));
+			return this;
+		}
+
+		public Query distinctSides(final int min, final int max) {
+			conditions.add(distinctSides.between(min, max));
+			return this;
+		}
+
+		// with the point as a vertex
+		public Query vertex(final Point point) {
+			final int index = board.indexOf(point);
+			conditions.add(index < 0 ? CompressedBitmap.EMPTY : byPoint[index]);
+			return this;
+		}
+
+		// with a side between the points, either way round
+		public Query side(final Point point1, final Point point2) {
+			final int index1 = board.indexOf(point1);
+			final int index2 = board.indexOf(point2);
+			conditions.add(index1 < 0 || index2 < 0 ? CompressedBitmap.EMPTY
+					: bySide.getOrDefault(sideKey(board, index1, index2), CompressedBitmap.EMPTY));
+			return this;
+		}
+
+		// the positions of the polygons, intersecting the smallest conditions first
+		public CompressedBitmap matches() {
+			if (conditions.isEmpty()) {
+				return CompressedBitmap.range(size);
+			}
+			conditions.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+			CompressedBitmap matches = conditions.get(0);
+			for (int i = 1; i < conditions.size() && !matches.isEmpty(); i++) {
+				matches = matches.and(conditions.get(i));
+			}
+			return matches;
+		}
+	}
+
+	// a query written as space-separated conditions, any of:
+	// twice-area=RANGE, right-angles=RANGE, distinct-sides=RANGE, where a RANGE is
+	// N, N-M, N- (at least N) or -M (at most M); vertex=R,C for a point's row and
+	// column; side=R,C-R,C
+	public Query query(final String text) {
+		final Query query = query();
+		for (final String condition : text.trim().split("\\s+")) {
+			if (condition.isEmpty()) {
+				continue;
+			}
+			final int equals = condition.indexOf('=');
+			if (equals < 0) {
+				throw new IllegalArgumentException("expected NAME=VALUE, not " + condition);
+			}
+			final String name = condition.substring(0, equals);
+			final String value = condition.substring(equals + 1);
+			try {
+				switch (name) {
+				case "twice-area":
+					query.twiceArea(parseMin(value), parseMax(value));
+					break;
+				case "right-angles":
+					query.rightAngles(parseMin(value), parseMax(value));
+					break;
+				case "distinct-sides":
+					query.distinctSides(parseMin(value), parseMax(value));
+					break;
+				case "vertex":
+					query.vertex(parsePoint(value));
+					break;
+				case "side":
+					final int dash = value.indexOf('-');
+					if (dash < 0) {
+						throw new IllegalArgumentException("a side is R,C-R,C");
+					}
+					query.side(parsePoint(value.substring(0, dash)), parsePoint(value.substring(dash + 1)));
+					break;
+				default:
+					throw new IllegalArgumentException("unknown condition " + name);
+				}
+			} catch (final NumberFormatException e) {
+				throw new IllegalArgumentException("can't read " + condition, e);
+			}
+		}
+		return query;
+	}
+
+	private static int parseMin(final String range) {
+		final int dash = range.indexOf('-');
+		return dash == 0 ? 0 : Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+	}
+
+	private static int parseMax(final String range) {
+		final int dash = range.indexOf('-');
+		if (dash < 0) {
+			return Integer.parseInt(range);
+		}
+		return dash == range.length() - 1 ? Integer.MAX_VALUE : Integer.parseInt(range.substring(dash + 1));
+	}
+
+	private static Point parsePoint(final String value) {
+		final int comma = value.indexOf(',');
+		if (comma < 0) {
+			throw new IllegalArgumentException("a point is R,C, not " + value);
+		}
+		return new Point(Integer.parseInt(value.substring(0, comma)), Integer.parseInt(value.substring(comma + 1)));
+	}
+
+}
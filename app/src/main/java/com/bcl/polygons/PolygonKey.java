@@ -0,0 +1,113 @@
+package com.bcl.polygons;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Compact keys for polygons whose vertices are given as board point indices. Two
+// polygons are equal (have the same sides) exactly when their canonical vertices
+// are the same, and the canonical vertices are packed into a long, first vertex
+// in the highest bits, so keys compare in the same order as the vertices do.
+// Polygons with too many vertices for one long split them across two.
+final class PolygonKey {
+
+	private PolygonKey() {
+	}
+
+	static int bitsPerVertex(final int pointCount) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(pointCount - 1));
+	}
+
+	static boolean fits(final int pointCount, final int vertexCount) {
+		return bitsPerVertex(pointCount) * vertexCount <= Long.SIZE;
+	}
+
+	// how many longs the key needs, splitting between whole vertices
+	static int words(final int pointCount, final int vertexCount) {
+		final int perWord = verticesPerWord(pointCount);
+		return (vertexCount + perWord - 1) / perWord;
+	}
+
+	static int verticesPerWord(final int pointCount) {
+		return Long.SIZE / bitsPerVertex(pointCount);
+	}
+
+	// the vertices starting from the lowest, in the direction that visits the lower
+	// of its two neighbours first - as Polygon.getCanonicalVertices
+	static void canonicalize(final int[] vertices, final int count, final int[] canonical) {
+		int lowest = 0;
+		for (int i = 1; i < count; i++) {
+			if (vertices[i] < vertices[lowest]) {
+				lowest = i;
+			}
+		}
+		final int next = vertices[(lowest + 1) % count];
+		final int previous = vertices[(lowest + count - 1) % count];
+		final int step = next <= previous ? 1 : count - 1;
+		for (int i = 0; i < count; i++) {
+			canonical[i] = vertices[(lowest + i * step) % count];
+		}
+	}
+
+	static long pack(final int[] canonical, final int count, final int bitsPerVertex) {
+		return pack(canonical, 0, count, bitsPerVertex);
+	}
+
+	static long pack(final int[] canonical, final int from, final int to, final int bitsPerVertex) {
+		long key = 0;
+		for (int i = from; i < to; i++) {
+			key = key << bitsPerVertex | canonical[i];
+		}
+		return key;
+	}
+
+	static void unpack(final long key, final int count, final int bitsPerVertex, final int[] vertices) {
+		final long mask = (1L << bitsPerVertex) - 1;
+		for (int i = count - 1; i >= 0; i--) {
+			vertices[i] = (int) (key >>> (count - 1 - i) * bitsPerVertex & mask);
+		}
+	}
+
+	// the sides of a polygon given as points, with each side's points in order and
+	// the sides sorted and without duplicates: two polygons have the same set of
+	// sides, regardless of direction, exactly when these keys are equal
+	static long[] sides(final List<Point> vertices) {
+		final int count = vertices.size();
+		final long[] sides = new long[count * 2];
+		for (int i = 0; i < count; i++) {
+			final long start = pack(vertices.get(i));
+			final long end = pack(vertices.get((i + 1) % count));
+			final long low = Math.min(start, end);
+			final long high = Math.max(start, end);
+
+			// insertion sort, as there are only a few sides
+			int j = i;
+			while (j > 0 && compare(sides, j - 1, low, high) > 0) {
+				sides[j * 2] = sides[(j - 1) * 2];
+				sides[j * 2 + 1] = sides[(j - 1) * 2 + 1];
+				j--;
+			}
+			sides[j * 2] = low;
+			sides[j * 2 + 1] = high;
+		}
+
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || compare(sides, distinct - 1, sides[i * 2], sides[i * 2 + 1]) != 0) {
+				sides[distinct * 2] = sides[i * 2];
+				sides[distinct * 2 + 1] = sides[i * 2 + 1];
+				distinct++;
+			}
+		}
+		return distinct == count ? sides : Arrays.copyOf(sides, distinct * 2);
+	}
+
+	private static long pack(final Point point) {
+		return (long) point.getRow() << Integer.SIZE | point.getColumn() & 0xffffffffL;
+	}
+
+	private static int compare(final long[] sides, final int side, final long low, final long high) {
+		final int compare = Long.compare(sides[side * 2], low);
+		return compare != 0 ? compare : Long.compare(sides[side * 2 + 1], high);
+	}
+
+}
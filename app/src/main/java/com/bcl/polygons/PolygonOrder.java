@@ -0,0 +1,203 @@
+package com.bcl.polygons;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// The order polygons are presented in: largest first, then most right angles,
+// then fewest distinct side lengths, with each polygon followed by those of its
+// rotations that were found, turning by the board's smallest rotation
+public final class PolygonOrder {
+
+	private static final Comparator<Polygon> comparatorSize = Comparator.comparing(Polygon::getTwiceArea);
+	private static final Comparator<Polygon> comparatorRightAngle = Comparator.comparing(Polygon::countRightAngles);
+	private static final Comparator<Polygon> comparatorDistinctSides = Comparator
+			.comparing(Polygon::countDistinctSides);
+	private static final Comparator<Polygon> comparatorVertices = new Comparator<Polygon>() {
+
+		@Override
+		public int compare(final Polygon o1, final Polygon o2) {
+			final List<Point> vertices1 = o1.getVertices();
+			final List<Point> vertices2 = o2.getVertices();
+
+			final int lowestPointOffest1 = getLowestPointOffset(vertices1);
+			final int lowestPointOffest2 = getLowestPointOffset(vertices2);
+
+			final int size = Math.min(vertices1.size(), vertices2.size());
+			for (int i = 0; i < size; i++) {
+				final Point vertex1 = vertices1.get((i + lowestPointOffest1) % vertices1.size());
+				final Point vertex2 = vertices2.get((i + lowestPointOffest2) % vertices2.size());
+
+				final int result = vertex1.compareTo(vertex2);
+				if (result != 0) {
+					return result;
+				}
+
+			}
+			// same, unless one has more vertices
+			return Integer.compare(vertices1.size(), vertices2.size());
+		}
+
+		private int getLowestPointOffset(final List<Point> vertices) {
+			int lowestPointOffset = 0;
+			for (int i = 1; i < vertices.size(); i++) {
+				if (vertices.get(lowestPointOffset).compareTo(vertices.get(i)) > 0) {
+					// vertex as i is lower
+					lowestPointOffset = i;
+				}
+			}
+			return lowestPointOffset;
+		}
+	};
+
+	public static final Comparator<Polygon> comparator = comparatorSize.reversed()
+			.thenComparing(comparatorRightAngle.reversed()).thenComparing(comparatorDistinctSides)
+			.thenComparing(comparatorVertices);
+
+	private final Board board;
+
+	public PolygonOrder(final Board board) {
+		this.board = board;
+	}
+
+	public List<Polygon> sort(final Collection<Polygon> polygons) {
+		final SearchPhaseEvent event = new SearchPhaseEvent("sort", board,
+				polygons.isEmpty() ? 0 : polygons.iterator().next().getVertices().size());
+		final List<Polygon> sorted = new ArrayList<>(order(polygons));
+		event.commit();
+		return sorted;
+	}
+
+	// the polygons, which must be on the board, in order, as a list that only sorts
+	// as far as it is read: the polygons are bucketed by size, right angles and
+	// distinct sides up front, and each bucket is sorted when the list is first read
+	// that far. Rotations have the same size, right angles and distinct sides, so
+	// always share a bucket. Not thread-safe.
+	public List<Polygon> order(final Collection<Polygon> polygons) {
+		return new LazyOrder(polygons);
+	}
+
+	// the polygon's canonical vertices as board point indices. Board indices are in
+	// point order, so comparing these compares vertices as comparatorVertices does.
+	private static final class Entry {
+		private final int[] vertices;
+
+		Entry(final int[] vertices) {
+			this.vertices = vertices;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(vertices);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof Entry && Arrays.equals(vertices, ((Entry) obj).vertices);
+		}
+	}
+
+	private final class LazyOrder extends AbstractList<Polygon> {
+
+		private final Iterator<Set<Entry>> buckets;
+		private final List<Polygon> ordered;
+		private final int size;
+
+		LazyOrder(final Collection<Polygon> polygons) {
+			// bucketed by a key that orders largest first, then most right angles, then
+			// fewest distinct sides
+			final SortedMap<Long, Set<Entry>> bucketsByKey = new TreeMap<>();
+			for (final Polygon polygon : polygons) {
+				final List<Point> canonical = polygon.getCanonicalVertices();
+				final int count = canonical.size();
+				final int[] vertices = new int[count];
+				final int[] rows = new int[count];
+				final int[] columns = new int[count];
+				for (int i = 0; i < count; i++) {
+					vertices[i] = board.indexOf(canonical.get(i));
+					rows[i] = canonical.get(i).getRow();
+					columns[i] = canonical.get(i).getColumn();
+				}
+				final long key = (long) (Integer.MAX_VALUE - GeometryKernel.twiceArea(rows, columns, count)) << 32
+						| (long) (0xffff - GeometryKernel.countRightAngles(board.getLattice(), rows, columns, count)) << 16
+						| GeometryKernel.countDistinctSides(board.getLattice(), rows, columns, count);
+				bucketsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(new Entry(vertices));
+			}
+
+			size = bucketsByKey.values().stream().mapToInt(Set::size).sum();
+			ordered = new ArrayList<>(size);
+			buckets = bucketsByKey.values().iterator();
+		}
+
+		@Override
+		public Polygon get(final int index) {
+			while (ordered.size() <= index && buckets.hasNext()) {
+				orderBucket(buckets.next());
+			}
+			return ordered.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		// sort the bucket, then pick off each polygon and its rotations
+		private void orderBucket(final Set<Entry> bucket) {
+			final List<Entry> sorted = new ArrayList<>(bucket);
+			bucket.clear();
+			sorted.sort((entry1, entry2) -> Arrays.compare(entry1.vertices, entry2.vertices));
+
+			final Map<Entry, Integer> positions = new HashMap<>();
+			for (int i = 0; i < sorted.size(); i++) {
+				positions.put(sorted.get(i), i);
+			}
+			final boolean[] taken = new boolean[sorted.size()];
+
+			for (int i = 0; i < sorted.size(); i++) {
+				if (taken[i]) {
+					continue;
+				}
+				taken[i] = true;
+				Entry entry = sorted.get(i);
+				ordered.add(board.getPolygon(entry.vertices, entry.vertices.length));
+
+				while (true) {
+					entry = rotate(entry);
+					final Integer position = entry == null ? null : positions.get(entry);
+					if (position == null || taken[position]) {
+						// no more rotations
+						break;
+					}
+					taken[position] = true;
+					ordered.add(board.getPolygon(entry.vertices, entry.vertices.length));
+				}
+			}
+		}
+
+		// by the board's smallest rotation, or null if it has none
+		private Entry rotate(final Entry entry) {
+			final Symmetry rotation = board.getRotation();
+			if (rotation == null) {
+				return null;
+			}
+			final int count = entry.vertices.length;
+			final int[] rotated = new int[count];
+			rotation.apply(entry.vertices, count, rotated);
+			final int[] canonical = new int[count];
+			PolygonKey.canonicalize(rotated, count, canonical);
+			return new Entry(canonical);
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.bcl.polygons;
+
+import java.util.Comparator;
+
+// A found polygon reduced to its packed canonical vertices (see PolygonKey) and
+// the values it is sorted by, for holding large numbers of results compactly
+public final class PolygonRecord {
+
+	// the same order as PolygonOrder.comparator, for polygons with the same number
+	// of vertices
+	public static final Comparator<PolygonRecord> comparator = Comparator
+			.comparingInt(PolygonRecord::getTwiceArea).reversed()
+			.thenComparing(Comparator.comparingInt(PolygonRecord::getRightAngles).reversed())
+			.thenComparingInt(PolygonRecord::getDistinctSides)
+			.thenComparing((record1, record2) -> Long.compareUnsigned(record1.key, record2.key));
+
+	private final long key;
+	private final int twiceArea;
+	private final int rightAngles;
+	private final int distinctSides;
+
+	public PolygonRecord(final long key, final int twiceArea, final int rightAngles, final int distinctSides) {
+		this.key = key;
+		this.twiceArea = twiceArea;
+		this.rightAngles = rightAngles;
+		this.distinctSides = distinctSides;
+	}
+
+	// the record for the polygon with the given canonical vertices, which must fit
+	// in a key
+	static PolygonRecord of(final Board board, final int[] vertices, final int count) {
+		final int[] rows = new int[count];
+		final int[] columns = new int[count];
+		for (int i = 0; i < count; i++) {
+			rows[i] = board.getPoint(vertices[i]).getRow();
+			columns[i] = board.getPoint(vertices[i]).getColumn();
+		}
+		return new PolygonRecord(PolygonKey.pack(vertices, count, PolygonKey.bitsPerVertex(board.getPointCount())),
+				GeometryKernel.twiceArea(rows, columns, count),
+				GeometryKernel.countRightAngles(board.getLattice(), rows, columns, count),
+				GeometryKernel.countDistinctSides(board.getLattice(), rows, columns, count));
+	}
+
+	public long getKey() {
+		return key;
+	}
+
+	public int getTwiceArea() {
+		return twiceArea;
+	}
+
+	public int getRightAngles() {
+		return rightAngles;
+	}
+
+	public int getDistinctSides() {
+		return distinctSides;
+	}
+
+	public Polygon toPolygon(final Board board, final int vertexCount) {
+		final int[] vertices = new int[vertexCount];
+		PolygonKey.unpack(key, vertexCount, PolygonKey.bitsPerVertex(board.getPointCount()), vertices);
+		return board.getPolygon(vertices, vertexCount);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(key);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		try {
+			final PolygonRecord record = (PolygonRecord) obj;
+			return key == record.key && twiceArea == record.twiceArea && rightAngles == record.rightAngles
+					&& distinctSides == record.distinctSides;
+		} catch (final ClassCastException | NullPointerException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%x (twice area %d, %d right angles, %d distinct sides)", key, twiceArea, rightAngles,
+				distinctSides);
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.bcl.polygons;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Line;
+
+// Shows one polygon at a time using a pool of nodes that is only ever added to:
+// showing a polygon moves the nodes it needs and hides the rest, so playback
+// creates no nodes and doesn't change the scene graph once the pool is big
+// enough
+final class PolygonRenderer {
+
+	private static final int VERTEX_DIAMETER = 30;
+	private static final int SIDE_WIDTH = 20;
+
+	// the sides are drawn over the vertices
+	private final Group vertexGroup = new Group();
+	private final Group sideGroup = new Group();
+	private final Group group = new Group(vertexGroup, sideGroup);
+	private final List<Circle> vertexNodes = new ArrayList<>();
+	private final List<Line> sideNodes = new ArrayList<>();
+
+	private final ToIntFunction<Point> toX;
+	private final ToIntFunction<Point> toY;
+
+	PolygonRenderer(final ToIntFunction<Point> toX, final ToIntFunction<Point> toY) {
+		this.toX = toX;
+		this.toY = toY;
+	}
+
+	Group getNode() {
+		return group;
+	}
+
+	void show(final Polygon polygon) {
+		final List<Point> vertices = polygon.getVertices();
+		final int count = vertices.size();
+		while (vertexNodes.size() < count) {
+			final Circle circle = new Circle(VERTEX_DIAMETER / 2, Color.BLACK);
+			vertexNodes.add(circle);
+			vertexGroup.getChildren().add(circle);
+
+			final Line line = new Line();
+			line.setStroke(Color.BLACK);
+			line.setStrokeWidth(SIDE_WIDTH);
+			sideNodes.add(line);
+			sideGroup.getChildren().add(line);
+		}
+
+		for (int i = 0; i < count; i++) {
+			final Point vertex = vertices.get(i);
+			final Point next = vertices.get((i + 1) % count);
+
+			final Circle circle = vertexNodes.get(i);
+			circle.setCenterX(toX.applyAsInt(vertex));
+			circle.setCenterY(toY.applyAsInt(vertex));
+			circle.setVisible(true);
+
+			final Line line = sideNodes.get(i);
+			line.setStartX(toX.applyAsInt(vertex));
+			line.setStartY(toY.applyAsInt(vertex));
+			line.setEndX(toX.applyAsInt(next));
+			line.setEndY(toY.applyAsInt(next));
+			line.setVisible(true);
+		}
+		hideFrom(count);
+	}
+
+	void clear() {
+		hideFrom(0);
+	}
+
+	private void hideFrom(final int first) {
+		for (int i = first; i < vertexNodes.size(); i++) {
+			vertexNodes.get(i).setVisible(false);
+			sideNodes.get(i).setVisible(false);
+		}
+	}
+
+}
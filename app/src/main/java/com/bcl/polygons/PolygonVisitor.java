@@ -0,0 +1,12 @@
+package com.bcl.polygons;
+
+// Receives each polygon as the enumeration finds it. It is called from the
+// worker threads, so must be thread-safe. The vertices are board point indices
+// in canonical order (see Polygon.getCanonicalVertices), and the array is reused
+// after the call returns, so copy anything that needs to be kept.
+@FunctionalInterface
+public interface PolygonVisitor {
+
+	void visit(int[] vertices, int count);
+
+}
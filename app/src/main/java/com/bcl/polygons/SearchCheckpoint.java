@@ -0,0 +1,289 @@
+package com.bcl.polygons;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+// The finished subtrees of a search, with the polygons found in each, saved to a
+// file as the search goes so that a search that is stopped can carry on from
+// where it got to. A subtree's polygons are only added once it is finished, and
+// a search carrying on from the checkpoint skips the finished subtrees and
+// passes their polygons on first, so it finds the same polygons as one that was
+// never stopped. Only the canonical modes find each polygon in just one subtree,
+// so the search over all orderings can't be checkpointed.
+//
+// The file is rewritten in full, to a temporary file that is then renamed over
+// it, so it is always either the old checkpoint or the new one. The periodic
+// saves write a copy of the finished subtrees taken as the interval passes, on a
+// thread of their own, so the search doesn't wait for them, and one that fails
+// is reported and the search carries on - the next save may do better:
+//   int    MAGIC
+//   int    VERSION
+//   int    length of the board's pattern in bytes
+//   byte[] the board's pattern, as Board.toPattern, in UTF-8
+//   int    vertices per polygon
+//   int    length of the mode's name, then the name, in UTF-8
+//   int    length of the shard, as Shard.toString, then the shard, in UTF-8;
+//          empty for the whole search
+//   int    number of finished subtrees
+// then for each finished subtree:
+//   long   the subtree, see PolygonEnumerator.subtreeOf
+//   int    number of polygons
+//   short  board point index of each vertex of each polygon, in canonical order
+public final class SearchCheckpoint {
+
+	static final int MAGIC = 0x504c4350; // "PLCP"
+	static final int VERSION = 2;
+
+	private final Path file;
+	private final Board board;
+	private final int vertices;
+	private final Mode mode;
+	private final Shard shard;
+	private final long intervalMillis;
+	// the vertices of the polygons found in each finished subtree, one after the
+	// other
+	private final Map<Long, int[]> finished = new HashMap<>();
+	private final int resumed;
+	private long lastSaved = System.currentTimeMillis();
+	// whether a periodic save is being written
+	private boolean saving = false;
+	// counts the copies of finished taken to save, so an older copy is never
+	// written over a newer one
+	private long copies = 0;
+	// held while writing the file, and guarding written
+	private final Object fileLock = new Object();
+	private long written = 0;
+
+	private SearchCheckpoint(final Path file, final PolygonEnumerator enumerator, final long intervalMillis,
+			final Map<Long, int[]> finished) {
+		this.file = file;
+		this.board = enumerator.getBoard();
+		this.vertices = enumerator.getVertices();
+		this.mode = enumerator.getMode();
+		this.shard = enumerator.getShard();
+		this.intervalMillis = intervalMillis;
+		this.finished.putAll(finished);
+		this.resumed = finished.size();
+	}
+
+	// the checkpoint in the file, if there is one, else an empty one that will be
+	// saved there; saved at most once per interval as subtrees finish
+	public static SearchCheckpoint open(final Path file, final PolygonEnumerator enumerator,
+			final long intervalMillis) throws IOException {
+		if (enumerator.getMode() == Mode.ALL_ORDERINGS) {
+			throw new IllegalArgumentException("only the canonical modes can be checkpointed");
+		} else if (enumerator.getMinVertices() < enumerator.getVertices()) {
+			throw new IllegalArgumentException("a search for more than one number of vertices can't be checkpointed");
+		} else if (enumerator.getBoard().getPointCount() > PolygonFile.MAX_POINTS) {
+			// the vertices are saved as unsigned shorts
+			throw new IllegalArgumentException(String.format("a board of more than %,d points can't be checkpointed",
+					PolygonFile.MAX_POINTS));
+		}
+		final Map<Long, int[]> finished = new HashMap<>();
+		if (Files.exists(file)) {
+			read(file, enumerator, finished);
+		}
+		return new SearchCheckpoint(file, enumerator, intervalMillis, finished);
+	}
+
+	private static void read(final Path file, final PolygonEnumerator enumerator, final Map<Long, int[]> finished)
+			throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a checkpoint");
+			}
+			final int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("unsupported checkpoint version " + version);
+			}
+			final String pattern = readString(in);
+			final int vertices = in.readInt();
+			final String mode = readString(in);
+			final String shard = readString(in);
+			if (!pattern.equals(enumerator.getBoard().toPattern()) || vertices != enumerator.getVertices()
+					|| !mode.equals(enumerator.getMode().name()) || !shard.equals(shardName(enumerator.getShard()))) {
+				throw new IOException(file + " is a checkpoint of a different search");
+			}
+
+			final int subtrees = in.readInt();
+			for (int i = 0; i < subtrees; i++) {
+				final long subtree = in.readLong();
+				final int[] polygons = new int[in.readInt() * vertices];
+				for (int j = 0; j < polygons.length; j++) {
+					polygons[j] = in.readUnsignedShort();
+				}
+				finished.put(subtree, polygons);
+			}
+		} catch (final EOFException e) {
+			throw new IOException("truncated checkpoint " + file, e);
+		}
+	}
+
+	private static String shardName(final Shard shard) {
+		return shard == null ? "" : shard.toString();
+	}
+
+	private static String readString(final DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(final DataOutputStream out, final String string) throws IOException {
+		final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	synchronized boolean isFinished(final long subtree) {
+		return finished.containsKey(subtree);
+	}
+
+	// passes on the polygons of the finished subtrees
+	synchronized void replay(final PolygonVisitor visitor) {
+		final int[] polygon = new int[vertices];
+		for (final int[] polygons : finished.values()) {
+			for (int i = 0; i < polygons.length; i += vertices) {
+				System.arraycopy(polygons, i, polygon, 0, vertices);
+				visitor.visit(polygon, vertices);
+			}
+		}
+	}
+
+	// a visitor that collects the polygons of the subtree, to add to the checkpoint
+	// when the subtree is finished
+	Subtree startSubtree(final long subtree) {
+		return new Subtree(subtree);
+	}
+
+	final class Subtree implements PolygonVisitor {
+		private final long subtree;
+		private int[] polygons = new int[0];
+		private int size = 0;
+
+		private Subtree(final long subtree) {
+			this.subtree = subtree;
+		}
+
+		@Override
+		public void visit(final int[] polygonVertices, final int count) {
+			if (size + count > polygons.length) {
+				polygons = Arrays.copyOf(polygons, Math.max(2 * polygons.length, 16 * vertices));
+			}
+			System.arraycopy(polygonVertices, 0, polygons, size, count);
+			size += count;
+		}
+
+		void finish() {
+			SearchCheckpoint.this.finish(subtree, Arrays.copyOf(polygons, size));
+		}
+	}
+
+	private void finish(final long subtree, final int[] polygons) {
+		final Map<Long, int[]> copy;
+		final long copyNumber;
+		synchronized (this) {
+			finished.put(subtree, polygons);
+			if (saving || System.currentTimeMillis() - lastSaved < intervalMillis) {
+				return;
+			}
+			saving = true;
+			lastSaved = System.currentTimeMillis();
+			// the subtrees' arrays don't change once finished, so aren't copied
+			copy = new HashMap<>(finished);
+			copyNumber = ++copies;
+		}
+		final Thread saver = new Thread(() -> {
+			try {
+				write(copy, copyNumber);
+			} catch (final IOException e) {
+				System.err.println("# checkpoint not saved to " + file + ": " + e);
+			} finally {
+				synchronized (this) {
+					saving = false;
+					notifyAll();
+				}
+			}
+		}, "checkpoint");
+		saver.setDaemon(true);
+		saver.start();
+	}
+
+	// waits for any periodic save being written
+	synchronized void awaitSaving() throws InterruptedException {
+		while (saving) {
+			wait();
+		}
+	}
+
+	// saves every subtree finished so far, waiting for it to be written
+	public void save() throws IOException {
+		final Map<Long, int[]> copy;
+		final long copyNumber;
+		synchronized (this) {
+			copy = new HashMap<>(finished);
+			copyNumber = ++copies;
+			lastSaved = System.currentTimeMillis();
+		}
+		write(copy, copyNumber);
+	}
+
+	private void write(final Map<Long, int[]> copy, final long copyNumber) throws IOException {
+		synchronized (fileLock) {
+			if (copyNumber < written) {
+				return;
+			}
+			writeFile(copy);
+			written = copyNumber;
+		}
+	}
+
+	private void writeFile(final Map<Long, int[]> copy) throws IOException {
+		final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileOutputStream fileOut = new FileOutputStream(temporary.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, board.toPattern());
+			out.writeInt(vertices);
+			writeString(out, mode.name());
+			writeString(out, shardName(shard));
+			out.writeInt(copy.size());
+			for (final Map.Entry<Long, int[]> entry : copy.entrySet()) {
+				out.writeLong(entry.getKey());
+				out.writeInt(entry.getValue().length / vertices);
+				for (final int index : entry.getValue()) {
+					out.writeShort(index);
+				}
+			}
+			// on disk before the rename, so a crash can't leave an empty checkpoint
+			out.flush();
+			fileOut.getFD().sync();
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	// the number of finished subtrees that were read from the file
+	public int getSubtreesResumed() {
+		return resumed;
+	}
+
+	public synchronized int getSubtreesFinished() {
+		return finished.size();
+	}
+
+}
@@ -0,0 +1,214 @@
+package com.bcl.polygons;
+
+import com.bcl.polygons.SearchStats.Rejection;
+
+// The open path of vertices chosen so far by the search. Vertices are pushed and
+// popped as the search goes down and back up, and each check only looks at the
+// sides that the newest vertex adds.
+final class SearchPath {
+
+	private final Board board;
+	// null for boards too large to have one
+	private final ConflictMatrix conflicts;
+	// null to try every free point
+	private final CandidateMasks masks;
+	private final Point[] points;
+	private final int[] indices;
+	private final int[] rows;
+	private final int[] columns;
+	private int size = 0;
+	// the board indices on the path as a bitset, so that the points still free
+	// can be found without copying anything as the search goes down
+	private final long[] used;
+	// for each size of path, the points it can be extended to, as a bitset - see
+	// findCandidates
+	private final long[][] candidates;
+
+	// scratch space for isFoundBySearch
+	private final int[] orderingIndices;
+	private final int[] orderingRows;
+	private final int[] orderingColumns;
+
+	SearchPath(final Board board, final int capacity) {
+		this(board, capacity, null);
+	}
+
+	SearchPath(final Board board, final int capacity, final CandidateMasks masks) {
+		this.board = board;
+		this.masks = masks;
+		conflicts = board.getConflicts();
+		points = new Point[capacity];
+		indices = new int[capacity];
+		rows = new int[capacity];
+		columns = new int[capacity];
+		orderingIndices = new int[capacity];
+		orderingRows = new int[capacity];
+		orderingColumns = new int[capacity];
+		used = new long[(board.getPointCount() + Long.SIZE - 1) / Long.SIZE];
+		candidates = new long[capacity][used.length];
+	}
+
+	SearchPath copy() {
+		final SearchPath copy = new SearchPath(board, points.length, masks);
+		for (int i = 0; i < size; i++) {
+			copy.push(indices[i]);
+		}
+		return copy;
+	}
+
+	// the point with the given board index
+	void push(final int index) {
+		final Point point = board.getPoint(index);
+		points[size] = point;
+		indices[size] = index;
+		rows[size] = point.getRow();
+		columns[size] = point.getColumn();
+		used[index >>> 6] |= 1L << index;
+		size++;
+	}
+
+	void push(final Point point) {
+		push(board.indexOf(point));
+	}
+
+	void pop() {
+		size--;
+		points[size] = null;
+		used[indices[size] >>> 6] &= ~(1L << indices[size]);
+	}
+
+	// works out the points that the path can be extended to, for nextCandidate:
+	// those not on the path, less any that the masks show would fail the checks
+	// on the newest side. These stay the same as points are pushed and popped,
+	// until the path is back to this size and they are worked out again.
+	void findCandidates() {
+		final long[] free = candidates[size];
+		for (int w = 0; w < used.length; w++) {
+			free[w] = ~used[w];
+		}
+		if (masks != null) {
+			if (SearchStats.ENABLED) {
+				long before = 0;
+				for (final long word : free) {
+					before += Long.bitCount(word);
+				}
+				masks.restrict(indices, size, free);
+				long after = 0;
+				for (final long word : free) {
+					after += Long.bitCount(word);
+				}
+				SearchStats.candidatesPruned(size, before - after);
+			} else {
+				masks.restrict(indices, size, free);
+			}
+		}
+	}
+
+	// the lowest board index from the given one that the path can be extended to,
+	// or -1 if there isn't one
+	int nextCandidate(final int from) {
+		final long[] free = candidates[size];
+		int word = from >>> 6;
+		if (word >= free.length) {
+			return -1;
+		}
+		long bits = free[word] & -1L << from;
+		while (bits == 0) {
+			if (++word == free.length) {
+				return -1;
+			}
+			bits = free[word];
+		}
+		final int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+		return index < board.getPointCount() ? index : -1;
+	}
+
+	void clear() {
+		while (size > 0) {
+			pop();
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	Point get(final int i) {
+		return points[i];
+	}
+
+	int getIndex(final int i) {
+		return indices[i];
+	}
+
+	// the board indices of the closed path's vertices, in canonical order
+	void canonicalize(final int[] canonical) {
+		PolygonKey.canonicalize(indices, size, canonical);
+	}
+
+	void visit(final PolygonVisitor visitor) {
+		visitor.visit(indices, size);
+	}
+
+	// whether the polygon made by closing the path is valid, given that the polygon
+	// made by closing the path without its newest vertex was valid. So this must be
+	// checked at each step as the path grows from 3 vertices.
+	boolean isValidWhenClosed() {
+		final boolean valid = conflicts != null ? conflicts.isValidExtension(indices, size)
+				: GeometryKernel.isValidExtension(rows, columns, size);
+		if (SearchStats.ENABLED) {
+			SearchStats.checked(valid ? null
+					: GeometryKernel.isParallelAt(rows, columns, size, size - 2)
+							|| GeometryKernel.isParallelAt(rows, columns, size, size - 1)
+							|| GeometryKernel.isParallelAt(rows, columns, size, 0) ? Rejection.PARALLEL_SIDES
+									: Rejection.MEETING_SIDES);
+		}
+		return valid;
+	}
+
+	// whether the newest side avoids the problems that no ordering of the eventual
+	// polygon's vertices can get round - see GeometryKernel.isViableExtension. As
+	// for isValidWhenClosed, this must be checked at each step from 3 vertices.
+	boolean isViable() {
+		final boolean viable = GeometryKernel.isViableExtension(rows, columns, size);
+		if (SearchStats.ENABLED) {
+			SearchStats.checked(viable ? null
+					: GeometryKernel.isParallelAt(rows, columns, size, size - 2) ? Rejection.PARALLEL_SIDES
+							: Rejection.MEETING_SIDES);
+		}
+		return viable;
+	}
+
+	// whether some ordering of the vertices of the closed path would be found by
+	// the search over all orderings, which requires each ordering's first 3, 4, ...
+	// vertices to form valid polygons in turn
+	boolean isFoundBySearch() {
+		for (int start = 0; start < size; start++) {
+			if (isFoundBySearch(start, 1) || isFoundBySearch(start, size - 1)) {
+				if (SearchStats.ENABLED) {
+					SearchStats.checked(null);
+				}
+				return true;
+			}
+		}
+		if (SearchStats.ENABLED) {
+			SearchStats.checked(Rejection.NOT_FOUND_BY_SEARCH);
+		}
+		return false;
+	}
+
+	private boolean isFoundBySearch(final int start, final int step) {
+		for (int i = 0; i < size; i++) {
+			final int vertex = (start + i * step) % size;
+			orderingIndices[i] = indices[vertex];
+			orderingRows[i] = rows[vertex];
+			orderingColumns[i] = columns[vertex];
+			if (i >= 2 && !(conflicts != null ? conflicts.isValidExtension(orderingIndices, i + 1)
+					: GeometryKernel.isValidExtension(orderingRows, orderingColumns, i + 1))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
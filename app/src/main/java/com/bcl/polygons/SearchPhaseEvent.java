@@ -0,0 +1,38 @@
+package com.bcl.polygons;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A Java Flight Recorder event for each phase of a run: "point setup" (building
+// the conflict matrix and candidate masks), "search", "sort", "merge" (sorting
+// shards' results together and dropping repeats) and "orbit expansion". Events
+// cost next to nothing unless a recording is taking them, e.g. with
+// -XX:StartFlightRecording:filename=run.jfr
+@Name("com.bcl.polygons.SearchPhase")
+@Label("Search Phase")
+@Category("Polygons")
+@Description("A phase of finding polygons on a board")
+final class SearchPhaseEvent extends Event {
+
+	@Label("Phase")
+	String phase;
+
+	@Label("Board")
+	String board;
+
+	@Label("Vertices")
+	int vertices;
+
+	// begun as it is made, so commit it when the phase is over. The board can be
+	// left null, and the vertices 0, until they are known.
+	SearchPhaseEvent(final String phase, final Board board, final int vertices) {
+		this.phase = phase;
+		this.board = board == null ? null : board.toString();
+		this.vertices = vertices;
+		begin();
+	}
+
+}
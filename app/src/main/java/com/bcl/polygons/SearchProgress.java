@@ -0,0 +1,89 @@
+package com.bcl.polygons;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// How far a search has got, safe to read from any thread while the search runs,
+// and a way to stop it. The search is split into subtrees, one for each choice of
+// its first few vertices; the total grows as the search splits, which it does
+// early on.
+public final class SearchProgress {
+
+	private final AtomicLong subtreesTotal = new AtomicLong();
+	private final AtomicLong subtreesDone = new AtomicLong();
+	private final LongAdder polygonsFound = new LongAdder();
+	private volatile boolean cancelled = false;
+	private volatile long startNanos = System.nanoTime();
+
+	void start() {
+		startNanos = System.nanoTime();
+	}
+
+	void addSubtrees(final long count) {
+		subtreesTotal.addAndGet(count);
+	}
+
+	void subtreeDone() {
+		subtreesDone.incrementAndGet();
+	}
+
+	// counts the polygons passed on to the visitor
+	PolygonVisitor counting(final PolygonVisitor visitor) {
+		return (vertices, count) -> {
+			polygonsFound.increment();
+			if (SearchStats.ENABLED) {
+				SearchStats.polygonFound();
+			}
+			visitor.visit(vertices, count);
+		};
+	}
+
+	// the workers stop at their next step, leaving the search incomplete
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public long getSubtreesTotal() {
+		return subtreesTotal.get();
+	}
+
+	public long getSubtreesDone() {
+		return subtreesDone.get();
+	}
+
+	public long getPolygonsFound() {
+		return polygonsFound.sum();
+	}
+
+	public long getElapsedMillis() {
+		return (System.nanoTime() - startNanos) / 1_000_000;
+	}
+
+	public double getPolygonsPerSecond() {
+		final long elapsed = getElapsedMillis();
+		return elapsed == 0 ? 0 : getPolygonsFound() * 1000d / elapsed;
+	}
+
+	// extrapolated from the share of subtrees done so far, or -1 before there is
+	// anything to go on
+	public long getEstimatedRemainingMillis() {
+		final long done = getSubtreesDone();
+		final long total = getSubtreesTotal();
+		if (done == 0 || total == 0) {
+			return -1;
+		}
+		return getElapsedMillis() * (total - done) / done;
+	}
+
+	@Override
+	public String toString() {
+		final long remaining = getEstimatedRemainingMillis();
+		return String.format("subtrees %,d/%,d, %,d polygons, %,.0f/s, ETA %s", getSubtreesDone(), getSubtreesTotal(),
+				getPolygonsFound(), getPolygonsPerSecond(), remaining < 0 ? "?" : remaining / 1000 + "s");
+	}
+
+}
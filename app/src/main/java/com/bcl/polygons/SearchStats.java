@@ -0,0 +1,193 @@
+package com.bcl.polygons;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Live counters of what the search is doing, for watching a run through JMX, as
+// com.bcl.polygons:type=SearchStats, alongside the phases recorded by
+// SearchPhaseEvent. The counting is only done when the JVM is started with
+// -Dpolygons.stats=true: callers check ENABLED first, and as it is a constant,
+// with it false the JIT drops the counting from the search altogether.
+public final class SearchStats implements SearchStatsMBean {
+
+	static final boolean ENABLED = Boolean.getBoolean("polygons.stats");
+
+	// deeper paths are counted with this depth
+	private static final int MAX_DEPTH = 31;
+
+	// why a path or polygon was turned down
+	enum Rejection {
+		// adjacent sides run in the same direction
+		PARALLEL_SIDES,
+		// sides that aren't adjacent cross, touch or overlap
+		MEETING_SIDES,
+		// no ordering of the vertices that the search could take reaches the polygon
+		NOT_FOUND_BY_SEARCH,
+		// a symmetry of the polygon represents it
+		NOT_ORBIT_REPRESENTATIVE
+	}
+
+	private static final SearchStats INSTANCE = new SearchStats();
+
+	static {
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+						new ObjectName("com.bcl.polygons:type=SearchStats"));
+			} catch (final JMException e) {
+				throw new IllegalStateException("can't register search stats", e);
+			}
+		}
+	}
+
+	private final LongAdder nodesVisited = new LongAdder();
+	private final LongAdder[] candidatesPruned = new LongAdder[MAX_DEPTH + 1];
+	private final LongAdder validityChecks = new LongAdder();
+	private final LongAdder[] rejections = new LongAdder[Rejection.values().length];
+	private final LongAdder dedupHits = new LongAdder();
+	private final LongAdder memoComputes = new LongAdder();
+	private final LongAdder memoHits = new LongAdder();
+	private final LongAdder polygonsFound = new LongAdder();
+	private volatile long startNanos = System.nanoTime();
+
+	private SearchStats() {
+		for (int i = 0; i < candidatesPruned.length; i++) {
+			candidatesPruned[i] = new LongAdder();
+		}
+		for (int i = 0; i < rejections.length; i++) {
+			rejections[i] = new LongAdder();
+		}
+	}
+
+	static SearchStats get() {
+		return INSTANCE;
+	}
+
+	static void nodeVisited() {
+		INSTANCE.nodesVisited.increment();
+	}
+
+	static void candidatesPruned(final int depth, final long count) {
+		INSTANCE.candidatesPruned[Math.min(depth, MAX_DEPTH)].add(count);
+	}
+
+	// null if the check passed
+	static void checked(final Rejection rejection) {
+		INSTANCE.validityChecks.increment();
+		if (rejection != null) {
+			INSTANCE.rejections[rejection.ordinal()].increment();
+		}
+	}
+
+	static void dedupHit() {
+		INSTANCE.dedupHits.increment();
+	}
+
+	// a look up of a value kept with Memo, which is a hit if it had already been
+	// computed
+	static void memoLookup(final boolean hit) {
+		(hit ? INSTANCE.memoHits : INSTANCE.memoComputes).increment();
+	}
+
+	static void polygonFound() {
+		INSTANCE.polygonsFound.increment();
+	}
+
+	@Override
+	public long getNodesVisited() {
+		return nodesVisited.sum();
+	}
+
+	@Override
+	public long[] getCandidatesPrunedByDepth() {
+		final long[] counts = new long[candidatesPruned.length];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = candidatesPruned[i].sum();
+		}
+		return counts;
+	}
+
+	@Override
+	public long getValidityChecks() {
+		return validityChecks.sum();
+	}
+
+	long getRejections(final Rejection rejection) {
+		return rejections[rejection.ordinal()].sum();
+	}
+
+	@Override
+	public long getParallelSidesRejections() {
+		return getRejections(Rejection.PARALLEL_SIDES);
+	}
+
+	@Override
+	public long getMeetingSidesRejections() {
+		return getRejections(Rejection.MEETING_SIDES);
+	}
+
+	@Override
+	public long getNotFoundBySearchRejections() {
+		return getRejections(Rejection.NOT_FOUND_BY_SEARCH);
+	}
+
+	@Override
+	public long getNotOrbitRepresentativeRejections() {
+		return getRejections(Rejection.NOT_ORBIT_REPRESENTATIVE);
+	}
+
+	@Override
+	public long getDedupHits() {
+		return dedupHits.sum();
+	}
+
+	@Override
+	public long getMemoComputes() {
+		return memoComputes.sum();
+	}
+
+	@Override
+	public long getMemoHits() {
+		return memoHits.sum();
+	}
+
+	@Override
+	public double getMemoHitRatio() {
+		final long hits = getMemoHits();
+		final long lookups = hits + getMemoComputes();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public long getPolygonsFound() {
+		return polygonsFound.sum();
+	}
+
+	// since the counters were last reset
+	@Override
+	public double getPolygonsPerSecond() {
+		final long elapsed = System.nanoTime() - startNanos;
+		return elapsed == 0 ? 0 : getPolygonsFound() * 1e9 / elapsed;
+	}
+
+	@Override
+	public void reset() {
+		nodesVisited.reset();
+		for (final LongAdder count : candidatesPruned) {
+			count.reset();
+		}
+		validityChecks.reset();
+		for (final LongAdder count : rejections) {
+			count.reset();
+		}
+		dedupHits.reset();
+		memoComputes.reset();
+		memoHits.reset();
+		polygonsFound.reset();
+		startNanos = System.nanoTime();
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.bcl.polygons;
+
+// The counters of SearchStats, as seen through JMX
+public interface SearchStatsMBean {
+
+	long getNodesVisited();
+
+	// by the number of vertices on the path when the next was chosen
+	long[] getCandidatesPrunedByDepth();
+
+	long getValidityChecks();
+
+	long getParallelSidesRejections();
+
+	long getMeetingSidesRejections();
+
+	long getNotFoundBySearchRejections();
+
+	long getNotOrbitRepresentativeRejections();
+
+	long getDedupHits();
+
+	long getMemoComputes();
+
+	long getMemoHits();
+
+	double getMemoHitRatio();
+
+	long getPolygonsFound();
+
+	double getPolygonsPerSecond();
+
+	void reset();
+
+}
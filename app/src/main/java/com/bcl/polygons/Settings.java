@@ -0,0 +1,307 @@
+package com.bcl.polygons;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+// The enumeration settings of the batch command line, BatchMain. The viewer has
+// its own fixed board and takes only --load and --rate.
+public final class Settings {
+
+	public enum Format {
+		TEXT, BINARY, HISTOGRAM
+	}
+
+	static final String USAGE = String.join("\n", //
+			"options:", //
+			"  --size N            rows and columns of the board (default 7)", //
+			"  --inner-removals N  rows and columns removed from the middle (default 3)", //
+			"  --board FILE        the board drawn in FILE instead: optionally square or triangular on the", //
+			"                      first line, then a line per row with o for each point and . for each gap", //
+			"  --triangle N        a triangular board with N points a side instead", //
+			"  --vertices N        vertices per polygon (default 3)", //
+			"  --from-vertices N   find the polygons with each number of vertices from N up to --vertices in", //
+			"                      one search, listed by number of vertices (only as TEXT or HISTOGRAM)", //
+			"  --threads N         worker threads (default: one per processor)", //
+			"  --mode MODE         ALL_ORDERINGS, CANONICAL or CANONICAL_ORBITS (default CANONICAL)", //
+			"  --output FILE       write results to FILE rather than standard output", //
+			"  --format FORMAT     TEXT, or BINARY for a result file the viewer can load (default TEXT;", //
+			"                      BINARY needs --output), or HISTOGRAM for just the number of polygons", //
+			"                      of each twice area, right angles and distinct sides", //
+			"  --contact-sheet P   also draw the results as PNG pages of thumbnails, P-0001.png, ...", //
+			"  --tile-size N       thumbnail size in pixels for --contact-sheet (default 48)", //
+			"  --run-size N        stream results through an external sort holding N in memory at a time,", //
+			"                      rather than holding them all (rotations are then not grouped together)", //
+			"  --checkpoint FILE   save the search's progress to FILE as it goes, and carry on from FILE if", //
+			"                      it is there (not with ALL_ORDERINGS)", //
+			"  --checkpoint-interval N  seconds between saves to the checkpoint (default 60)", //
+			"  --shard I/N         search only the Ith of N parts of the search, for merging later", //
+			"  --shards N          search in N parts, each in a process of its own, then merge them", //
+			"  --merge FILES       merge the comma-separated BINARY results of the parts of a search rather", //
+			"                      than searching");
+
+	private int size = 7;
+	private int innerRemovals = 3;
+	// null for a square board of the size and inner removals
+	private Board board = null;
+	private int vertices = 3;
+	// 0 for just the given number of vertices
+	private int fromVertices = 0;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private Mode mode = Mode.CANONICAL;
+	private Path output = null;
+	private Format format = Format.TEXT;
+	private int runSize = 0;
+	private Path contactSheet = null;
+	private int tileSize = 48;
+	private Path checkpoint = null;
+	private int checkpointInterval = 60;
+	private Shard shard = null;
+	private int shards = 0;
+	private List<Path> merge = null;
+	// as given, to pass on to the processes searching the shards
+	private List<String> args;
+
+	private Settings() {
+	}
+
+	public static Settings parse(final List<String> args) {
+		final Settings settings = new Settings();
+		settings.args = args;
+		final Iterator<String> iterator = args.iterator();
+		while (iterator.hasNext()) {
+			final String option = iterator.next();
+			if (!iterator.hasNext()) {
+				throw new IllegalArgumentException("missing value for " + option);
+			}
+			final String value = iterator.next();
+			switch (option) {
+			case "--size":
+				settings.size = parsePositive(option, value);
+				break;
+			case "--inner-removals":
+				settings.innerRemovals = Integer.parseInt(value);
+				break;
+			case "--board":
+				try {
+					settings.board = Board.parse(Files.readString(Paths.get(value)));
+				} catch (final IOException e) {
+					throw new IllegalArgumentException("can't read " + value + ": " + e.getMessage(), e);
+				}
+				break;
+			case "--triangle":
+				settings.board = Board.triangle(parsePositive(option, value));
+				break;
+			case "--vertices":
+				settings.vertices = parsePositive(option, value);
+				break;
+			case "--from-vertices":
+				settings.fromVertices = parsePositive(option, value);
+				break;
+			case "--threads":
+				settings.threads = parsePositive(option, value);
+				break;
+			case "--mode":
+				settings.mode = Mode.valueOf(value);
+				break;
+			case "--output":
+				settings.output = Paths.get(value);
+				break;
+			case "--format":
+				settings.format = Format.valueOf(value);
+				break;
+			case "--contact-sheet":
+				settings.contactSheet = Paths.get(value);
+				break;
+			case "--tile-size":
+				settings.tileSize = parsePositive(option, value);
+				break;
+			case "--run-size":
+				settings.runSize = parsePositive(option, value);
+				break;
+			case "--checkpoint":
+				settings.checkpoint = Paths.get(value);
+				break;
+			case "--checkpoint-interval":
+				settings.checkpointInterval = parsePositive(option, value);
+				break;
+			case "--shard":
+				settings.shard = Shard.parse(value);
+				break;
+			case "--shards":
+				settings.shards = parsePositive(option, value);
+				break;
+			case "--merge":
+				settings.merge = new ArrayList<>();
+				for (final String file : value.split(",")) {
+					settings.merge.add(Paths.get(file));
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("unknown option " + option);
+			}
+		}
+
+		if (settings.vertices < 3) {
+			throw new IllegalArgumentException("--vertices must be at least 3");
+		}
+		if (settings.fromVertices == 0) {
+			settings.fromVertices = settings.vertices;
+		} else if (settings.fromVertices < 3 || settings.fromVertices > settings.vertices) {
+			throw new IllegalArgumentException("--from-vertices must be between 3 and --vertices");
+		}
+		if (settings.isSweep() && (settings.format == Format.BINARY || settings.runSize > 0
+				|| settings.checkpoint != null || settings.shard != null || settings.shards > 0)) {
+			throw new IllegalArgumentException(
+					"--from-vertices can't be used with --format BINARY, --run-size, --checkpoint or shards");
+		}
+		if (settings.innerRemovals < 0 || settings.innerRemovals > settings.size) {
+			throw new IllegalArgumentException("--inner-removals must be between 0 and the size");
+		}
+		if (settings.format == Format.BINARY && settings.output == null) {
+			throw new IllegalArgumentException("--format BINARY needs --output");
+		}
+		if (settings.format == Format.HISTOGRAM && (settings.runSize > 0 || settings.contactSheet != null)) {
+			throw new IllegalArgumentException("--format HISTOGRAM can't be used with --run-size or --contact-sheet");
+		}
+		if (settings.contactSheet != null && settings.runSize > 0) {
+			throw new IllegalArgumentException("--contact-sheet can't be used with --run-size");
+		}
+		if (settings.checkpoint != null && settings.mode == Mode.ALL_ORDERINGS) {
+			throw new IllegalArgumentException("--checkpoint needs a canonical --mode");
+		}
+		if ((settings.shard != null ? 1 : 0) + (settings.shards > 0 ? 1 : 0) + (settings.merge != null ? 1 : 0) > 1) {
+			throw new IllegalArgumentException("only one of --shard, --shards and --merge can be used");
+		}
+		if ((settings.shards > 0 || settings.merge != null)
+				&& (settings.format == Format.HISTOGRAM || settings.contactSheet != null || settings.checkpoint != null)) {
+			throw new IllegalArgumentException(
+					"--shards and --merge can't be used with --format HISTOGRAM, --contact-sheet or --checkpoint");
+		}
+		if (settings.board == null) {
+			settings.board = Board.square(settings.size, settings.innerRemovals);
+		}
+		return settings;
+	}
+
+	private static int parsePositive(final String option, final String value) {
+		final int parsed = Integer.parseInt(value);
+		if (parsed <= 0) {
+			throw new IllegalArgumentException(option + " must be positive");
+		}
+		return parsed;
+	}
+
+	public Board getBoard() {
+		return board;
+	}
+
+	public int getVertices() {
+		return vertices;
+	}
+
+	public int getFromVertices() {
+		return fromVertices;
+	}
+
+	// whether more than one number of vertices is searched for
+	public boolean isSweep() {
+		return fromVertices < vertices;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	// null for standard output
+	public Path getOutput() {
+		return output;
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	// 0 unless results are to be streamed
+	public int getRunSize() {
+		return runSize;
+	}
+
+	// null unless a contact sheet is wanted
+	public Path getContactSheet() {
+		return contactSheet;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	// null unless the search is to be checkpointed
+	public Path getCheckpoint() {
+		return checkpoint;
+	}
+
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	// null to search every shard
+	public Shard getShard() {
+		return shard;
+	}
+
+	// 0 unless each shard is to be searched in a process of its own
+	public int getShards() {
+		return shards;
+	}
+
+	// null unless the results of shards are to be merged
+	public List<Path> getMerge() {
+		return merge;
+	}
+
+	// the arguments for a process searching one of the shards, writing BINARY results
+	// to the output and sharing the threads with the others
+	List<String> forShard(final Shard shardToSearch, final Path shardOutput) {
+		final List<String> shardArgs = new ArrayList<>();
+		for (int i = 0; i + 1 < args.size(); i += 2) {
+			switch (args.get(i)) {
+			case "--shards":
+			case "--threads":
+			case "--output":
+			case "--format":
+				break;
+			default:
+				shardArgs.add(args.get(i));
+				shardArgs.add(args.get(i + 1));
+			}
+		}
+		shardArgs.addAll(Arrays.asList("--shard", shardToSearch.toString(), "--threads",
+				Integer.toString(Math.max(1, threads / shardToSearch.getCount())), "--format", "BINARY", "--output",
+				shardOutput.toString()));
+		return shardArgs;
+	}
+
+	public PolygonEnumerator getEnumerator() {
+		return new PolygonEnumerator(getBoard(), fromVertices, vertices, mode, shard);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s, %s vertices, %s, %d threads", getBoard(),
+				isSweep() ? fromVertices + " to " + vertices : Integer.toString(vertices), mode, threads)
+				+ (shard == null ? "" : ", shard " + shard) + (shards == 0 ? "" : ", " + shards + " shards");
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.bcl.polygons;
+
+// One of a number of parts that a search is split into by its first vertices, so
+// that the parts can be searched separately - in other processes, or on other
+// machines - and their results merged. Each subtree of the search (see
+// PolygonEnumerator) is in the part given by its number modulo the number of
+// parts, so neighbouring subtrees, which take similar times, are spread across
+// the parts. Shards are numbered from 1 when written as I/N.
+public final class Shard {
+
+	// from 0
+	private final int index;
+	private final int count;
+
+	public Shard(final int index, final int count) {
+		if (count <= 0 || index < 0 || index >= count) {
+			throw new IllegalArgumentException("no shard " + (index + 1) + " of " + count);
+		}
+		this.index = index;
+		this.count = count;
+	}
+
+	public static Shard parse(final String value) {
+		final int slash = value.indexOf('/');
+		if (slash < 0) {
+			throw new IllegalArgumentException("a shard is I/N, not " + value);
+		}
+		return new Shard(Integer.parseInt(value.substring(0, slash)) - 1,
+				Integer.parseInt(value.substring(slash + 1)));
+	}
+
+	boolean contains(final long subtree) {
+		return subtree % count == index;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * index + count;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof Shard)) {
+			return false;
+		}
+		final Shard other = (Shard) obj;
+		return index == other.index && count == other.count;
+	}
+
+	@Override
+	public String toString() {
+		return (index + 1) + "/" + count;
+	}
+
+}
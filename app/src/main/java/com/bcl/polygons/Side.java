@@ -1,51 +1,41 @@
 package com.bcl.polygons;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 public final class Side {
 
     private final Point start;
     private final Point end;
-    private final Cached<Point> direction = Cached.of(() -> getEnd().subtract(getStart()));
-    private Cached<Integer> hashCode = Cached.of(() -> getPoints().hashCode());
-
-    private final Cached<Set<Point>> points = Cached.of(() -> {
-        final Set<Point> tempPoints = new HashSet<>();
-        tempPoints.add(getStart());
-        tempPoints.add(getEnd());
-        return tempPoints;
-    });
-
-    private final Cached<Double> length = Cached.of(() -> {
-        final double xLen = getStart().getColumn() - getEnd().getColumn();
-        final double yLen = getStart().getRow() - getEnd().getRow();
-        final double sumSquares = xLen * xLen + yLen * yLen;
-        final double dist = Math.sqrt(sumSquares);
-        return MainApp.round(dist);
-    });
+    // the layout that lengths are measured in
+    private final Lattice lattice;
+    // computed lazily, see Memo
+    private Point direction = null;
+    private volatile double length = Memo.UNSET_DOUBLE;
 
     public Side(final Point start, final Point end) {
-        this.start = start;
-        this.end = end;
-
+        this(start, end, Lattice.SQUARE);
     }
 
-    private Set<Point> getPoints() {
-        return points.get();
+    Side(final Point start, final Point end, final Lattice lattice) {
+        this.start = start;
+        this.end = end;
+        this.lattice = lattice;
     }
 
     @Override
     public int hashCode() {
-        return hashCode.get();
+        // the same as the hash code of the set of the two points, without building the set
+        return start.equals(end) ? start.hashCode() : start.hashCode() + end.hashCode();
     }
 
     @Override
     public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
         try {
             final Side side = (Side) obj;
-            return getPoints().equals(side.getPoints());
+            // the same points, regardless of direction
+            return start.equals(side.start) && end.equals(side.end)
+                    || start.equals(side.end) && end.equals(side.start);
         } catch (@SuppressWarnings("unused") final ClassCastException | NullPointerException e) {
             return false;
         }
@@ -57,7 +47,16 @@ public final class Side {
     }
 
     public double length() {
-        return length.get();
+        double value = length;
+        if (SearchStats.ENABLED) {
+            SearchStats.memoLookup(!Memo.isUnset(value));
+        }
+        if (Memo.isUnset(value)) {
+            value = lattice.length(getStart().getRow() - getEnd().getRow(),
+                    getStart().getColumn() - getEnd().getColumn());
+            length = value;
+        }
+        return value;
     }
 
     public Point getStart() {
@@ -68,13 +67,23 @@ public final class Side {
         return end;
     }
 
+    Lattice getLattice() {
+        return lattice;
+    }
+
     public Point getDirection() {
-        return direction.get();
+        Point value = direction;
+        if (value == null) {
+            value = getEnd().subtract(getStart());
+            direction = value;
+        }
+        return value;
     }
 
     public boolean isNonAdjacentTo(final Side side) {
-        // check how many distinct vertices there are
-        return new HashSet<>(Arrays.asList(start, end, side.start, side.end)).size() == 4;
+        // check all four vertices are distinct
+        return !start.equals(end) && !side.start.equals(side.end) && !start.equals(side.start)
+                && !start.equals(side.end) && !end.equals(side.start) && !end.equals(side.end);
     }
 
     public boolean projectionContains(final Point point) {
@@ -116,4 +125,36 @@ public final class Side {
             return dA >= discriminator && dA < 0 && dB >= discriminator && dB <= 0;
         }
     }
+
+    public boolean isCollinearWith(final Side side) {
+        return projectionContains(side.start) && projectionContains(side.end);
+    }
+
+    public boolean crosses(final Side side) {
+        // like intersects, but only true when the sides cross strictly inside both of
+        // them, which does not depend on the direction or order of the sides
+        final int x1a = start.getColumn();
+        final int y1a = start.getRow();
+        final int x2a = end.getColumn();
+        final int y2a = end.getRow();
+
+        final int x1b = side.start.getColumn();
+        final int y1b = side.start.getRow();
+        final int x2b = side.end.getColumn();
+        final int y2b = side.end.getRow();
+
+        final int discriminator = (x2b - x1b) * (y1a - y2a) - (x1a - x2a) * (y2b - y1b);
+        if (discriminator == 0) {
+            return false;
+        }
+
+        final int dA = (y1b - y2b) * (x1a - x1b) + (x2b - x1b) * (y1a - y1b);
+        final int dB = (y1a - y2a) * (x1a - x1b) + (x2a - x1a) * (y1a - y1b);
+
+        if (discriminator > 0) {
+            return dA > 0 && dA < discriminator && dB > 0 && dB < discriminator;
+        } else {
+            return dA < 0 && dA > discriminator && dB < 0 && dB > discriminator;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.bcl.polygons;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// A rearrangement of a board's points that maps the board onto itself, held as
+// a permutation of the point indices
+public final class Symmetry {
+
+	private final Board board;
+	private final String name;
+	// the index of the image of each point
+	private final int[] permutation;
+
+	Symmetry(final Board board, final String name, final int[] permutation) {
+		this.board = board;
+		this.name = name;
+		this.permutation = permutation;
+	}
+
+	public int apply(final int index) {
+		return permutation[index];
+	}
+
+	// the point, which must be on the board
+	public Point apply(final Point point) {
+		final int index = board.indexOf(point);
+		if (index < 0) {
+			throw new IllegalArgumentException(point + " is not on " + board);
+		}
+		return board.getPoint(permutation[index]);
+	}
+
+	public Polygon apply(final Polygon polygon) {
+		return board.getPolygon(apply(polygon.getVertices()));
+	}
+
+	List<Point> apply(final List<Point> points) {
+		return points.stream().map(this::apply).collect(Collectors.toList());
+	}
+
+	// the images of the first count of the given point indices
+	void apply(final int[] vertices, final int count, final int[] images) {
+		for (int i = 0; i < count; i++) {
+			images[i] = permutation[vertices[i]];
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
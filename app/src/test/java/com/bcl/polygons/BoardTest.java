@@ -0,0 +1,79 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class BoardTest {
+
+	@Test
+	public void sharesPointsAndSides() {
+		final Board board = Board.square(7, 3);
+
+		final Point point = board.getPoint(0, 1);
+		assertThat(board.getPoint(board.indexOf(new Point(0, 1))), sameInstance(point));
+		assertThat(board.intern(new Point(0, 1)), sameInstance(point));
+		assertThat(board.getPoint(3, 3), nullValue());
+
+		final int from = board.indexOf(point);
+		final int to = board.indexOf(new Point(6, 6));
+		final Side side = board.getSide(from, to);
+		assertThat(board.getSide(from, to), sameInstance(side));
+		assertThat(side, equalTo(new Side(new Point(0, 1), new Point(6, 6))));
+		assertThat(side.length(), equalTo(new Side(new Point(0, 1), new Point(6, 6)).length()));
+
+		final Polygon polygon = board.getPolygon(Arrays.asList(new Point(0, 0), new Point(0, 1), new Point(6, 6)));
+		assertThat(polygon.getSides().get(1), sameInstance(side));
+		assertThat(polygon, equalTo(new Polygon(Arrays.asList(new Point(6, 6), new Point(0, 1), new Point(0, 0)))));
+	}
+
+	@Test
+	public void findsSymmetriesOfShapes() {
+		assertThat(names(Board.square(7, 3)), equalTo(List.of("identity", "rotate 90", "rotate 180", "rotate 270",
+				"reflect rows", "reflect columns", "reflect diagonal", "reflect anti-diagonal")));
+		assertThat(names(Board.rectangle(3, 5)),
+				equalTo(List.of("identity", "rotate 180", "reflect rows", "reflect columns")));
+		assertThat(Board.rectangle(3, 5).getRotation().getName(), equalTo("rotate 180"));
+		assertThat(names(Board.parse("oo\no.")), equalTo(List.of("identity", "reflect diagonal")));
+		assertThat(Board.parse("oo\no.").getRotation(), nullValue());
+
+		// a triangle has the symmetries of an equilateral triangle
+		final Board triangle = Board.triangle(4);
+		assertThat(triangle.getPointCount(), equalTo(10));
+		assertThat(names(triangle),
+				equalTo(List.of("identity", "rotate 120", "rotate 240", "reflect 30", "reflect columns", "reflect 150")));
+		assertThat(Board.parse(triangle.toPattern()), equalTo(triangle));
+	}
+
+	@Test
+	public void symmetriesKeepLengthsAndAngles() {
+		for (final Board board : new Board[] { Board.square(5, 1), Board.triangle(4) }) {
+			final Set<Polygon> polygons = new PolygonEnumerator(board, 4, Mode.CANONICAL).enumerate();
+			for (final Symmetry symmetry : board.getSymmetries()) {
+				for (final Polygon polygon : polygons) {
+					final Polygon image = symmetry.apply(polygon);
+					assertThat(polygons.contains(image), equalTo(true));
+					assertThat(image.getTwiceArea(), equalTo(polygon.getTwiceArea()));
+					assertThat(image.countRightAngles(), equalTo(polygon.countRightAngles()));
+					assertThat(image.getSides().stream().map(Side::length).sorted().collect(Collectors.toList()),
+							equalTo(polygon.getSides().stream().map(Side::length).sorted().collect(Collectors.toList())));
+				}
+			}
+		}
+	}
+
+	private static List<String> names(final Board board) {
+		return board.getSymmetries().stream().map(Symmetry::getName).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CandidateMasksTest {
+
+	@Test
+	public void candidatesMatchKernel() {
+		// more than 64 points, so the masks are more than one word
+		final Board board = Board.square(9, 3);
+		final int points = board.getPointCount();
+		final CandidateMasks ordered = CandidateMasks.build(board, true);
+		final CandidateMasks anyOrder = CandidateMasks.build(board, false);
+		final List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < points; i++) {
+			order.add(i);
+		}
+
+		final Random random = new Random(1);
+		final int[] vertices = new int[8];
+		final int[] rows = new int[vertices.length + 1];
+		final int[] columns = new int[vertices.length + 1];
+		final long[] orderedCandidates = new long[2];
+		final long[] anyOrderCandidates = new long[2];
+		for (int trial = 0; trial < 2_000; trial++) {
+			Collections.shuffle(order, random);
+			final int size = 2 + random.nextInt(vertices.length - 1);
+			for (int i = 0; i < size; i++) {
+				vertices[i] = order.get(i);
+				rows[i] = board.getPoint(vertices[i]).getRow();
+				columns[i] = board.getPoint(vertices[i]).getColumn();
+			}
+			orderedCandidates[0] = anyOrderCandidates[0] = -1L;
+			orderedCandidates[1] = anyOrderCandidates[1] = -1L;
+			ordered.restrict(vertices, size, orderedCandidates);
+			anyOrder.restrict(vertices, size, anyOrderCandidates);
+
+			for (int i = size; i < points; i++) {
+				final int next = order.get(i);
+				rows[size] = board.getPoint(next).getRow();
+				columns[size] = board.getPoint(next).getColumn();
+
+				boolean expected = !GeometryKernel.isParallel(rows[size - 1] - rows[size - 2],
+						columns[size - 1] - columns[size - 2], rows[size] - rows[size - 1],
+						columns[size] - columns[size - 1]);
+				for (int j = 0; j + 3 <= size; j++) {
+					expected &= !GeometryKernel.isConflict(rows, columns, j, j + 1, size - 1, size);
+				}
+				assertThat(isSet(orderedCandidates, next), equalTo(expected));
+				assertThat(isSet(anyOrderCandidates, next),
+						equalTo(GeometryKernel.isViableExtension(rows, columns, size + 1)));
+			}
+		}
+	}
+
+	private static boolean isSet(final long[] bits, final int index) {
+		return (bits[index >>> 6] & 1L << index) != 0;
+	}
+
+}
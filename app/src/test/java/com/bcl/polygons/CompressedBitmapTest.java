@@ -0,0 +1,95 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompressedBitmapTest {
+
+	// values spread over three chunks, dense enough in the first to make it a bitmap
+	private static BitSet randomSet(final Random random, final double density) {
+		final BitSet set = new BitSet();
+		for (int value = 0; value < 3 * 65536; value++) {
+			if (random.nextDouble() < (value < 65536 ? density : density / 50)) {
+				set.set(value);
+			}
+		}
+		return set;
+	}
+
+	private static CompressedBitmap toBitmap(final BitSet set) {
+		final CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+		set.stream().forEach(builder::add);
+		return builder.build();
+	}
+
+	@Test
+	public void matchesBitSet() {
+		final Random random = new Random(1);
+		for (final double density : new double[] { 0.01, 0.2, 0.9 }) {
+			final BitSet set1 = randomSet(random, density);
+			final BitSet set2 = randomSet(random, 0.1);
+			final CompressedBitmap bitmap1 = toBitmap(set1);
+			final CompressedBitmap bitmap2 = toBitmap(set2);
+			assertThat(bitmap1.cardinality(), equalTo(set1.cardinality()));
+			assertThat(bitmap1.toArray(), equalTo(set1.stream().toArray()));
+			for (int value = 0; value < 4 * 65536; value += 7) {
+				assertThat(bitmap1.contains(value), equalTo(set1.get(value)));
+			}
+
+			final BitSet and = (BitSet) set1.clone();
+			and.and(set2);
+			assertThat(bitmap1.and(bitmap2).toArray(), equalTo(and.stream().toArray()));
+			assertThat(bitmap2.and(bitmap1).cardinality(), equalTo(and.cardinality()));
+			final BitSet or = (BitSet) set1.clone();
+			or.or(set2);
+			assertThat(bitmap1.or(bitmap2).toArray(), equalTo(or.stream().toArray()));
+			assertThat(bitmap2.or(bitmap1).cardinality(), equalTo(or.cardinality()));
+		}
+	}
+
+	@Test
+	public void orOfMany() {
+		final Random random = new Random(2);
+		final CompressedBitmap[] bitmaps = new CompressedBitmap[40];
+		final BitSet[] sets = new BitSet[bitmaps.length];
+		for (int i = 0; i < bitmaps.length; i++) {
+			// mostly sparse, with a few dense enough for bitmap chunks
+			sets[i] = randomSet(random, i % 10 == 0 ? 0.3 : 0.002);
+			bitmaps[i] = toBitmap(sets[i]);
+		}
+		for (final int[] range : new int[][] { { 0, 40 }, { 5, 9 }, { 7, 8 }, { 3, 3 } }) {
+			final BitSet or = new BitSet();
+			CompressedBitmap pairwise = CompressedBitmap.EMPTY;
+			for (int i = range[0]; i < range[1]; i++) {
+				or.or(sets[i]);
+				pairwise = pairwise.or(bitmaps[i]);
+			}
+			final CompressedBitmap merged = CompressedBitmap.or(bitmaps, range[0], range[1]);
+			assertThat(merged.toArray(), equalTo(or.stream().toArray()));
+			assertThat(merged.toArray(), equalTo(pairwise.toArray()));
+		}
+	}
+
+	@Test
+	public void range() {
+		final CompressedBitmap range = CompressedBitmap.range(70000);
+		assertThat(range.cardinality(), equalTo(70000));
+		assertThat(range.contains(69999), equalTo(true));
+		assertThat(range.contains(70000), equalTo(false));
+		assertThat(range.and(CompressedBitmap.of(3, 65535, 65536, 80000)).toArray(),
+				equalTo(new int[] { 3, 65535, 65536 }));
+		assertThat(CompressedBitmap.EMPTY.or(range).cardinality(), equalTo(70000));
+		assertThat(CompressedBitmap.range(0).isEmpty(), equalTo(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void valuesMustIncrease() {
+		CompressedBitmap.of(2, 1);
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class ConflictMatrixTest {
+
+	@Test
+	public void extensionsMatchKernel() {
+		final Board board = Board.square(5, 1);
+		final ConflictMatrix matrix = ConflictMatrix.build(board);
+		final List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < board.getPointCount(); i++) {
+			order.add(i);
+		}
+
+		final Random random = new Random(1);
+		final int[] vertices = new int[8];
+		final int[] rows = new int[8];
+		final int[] columns = new int[8];
+		for (int trial = 0; trial < 20_000; trial++) {
+			Collections.shuffle(order, random);
+			for (int i = 0; i < vertices.length; i++) {
+				vertices[i] = order.get(i);
+				rows[i] = board.getPoint(vertices[i]).getRow();
+				columns[i] = board.getPoint(vertices[i]).getColumn();
+			}
+			for (int n = 3; n <= vertices.length; n++) {
+				assertThat(matrix.isValidExtension(vertices, n),
+						equalTo(GeometryKernel.isValidExtension(rows, columns, n)));
+			}
+		}
+	}
+
+	@Test
+	public void cachedMatchesBuilt() throws IOException {
+		final Board board = Board.square(4, 2);
+		final Path directory = Files.createTempDirectory("conflicts");
+		try {
+			final ConflictMatrix built = ConflictMatrix.load(board, directory);
+			final ConflictMatrix cached = ConflictMatrix.load(board, directory);
+			final int sides = board.getPointCount() * board.getPointCount();
+			for (int earlier = 0; earlier < sides; earlier++) {
+				for (int later = 0; later < sides; later++) {
+					assertThat(cached.get(earlier, later), equalTo(built.get(earlier, later)));
+				}
+			}
+		} finally {
+			try (Stream<Path> files = Files.list(directory)) {
+				for (final Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class ContactSheetTest {
+
+	@Test
+	public void writesPagesOfTiles() throws IOException {
+		final Board board = Board.square(4, 2);
+		final List<Polygon> polygons = new PolygonOrder(board)
+				.sort(new PolygonEnumerator(board, 4, Mode.CANONICAL).enumerate());
+
+		final Path directory = Files.createTempDirectory("sheets");
+		try {
+			// 363 polygons, 2,500 to a page
+			final ContactSheet sheet = new ContactSheet(board, 8);
+			assertThat(sheet.writePages(polygons, directory.resolve("sheet")), equalTo(1));
+
+			final Path page = directory.resolve("sheet-0001.png");
+			final BufferedImage image = ImageIO.read(page.toFile());
+			assertThat(image.getWidth(), equalTo(ContactSheet.PAGE_COLUMNS * 8));
+			assertThat(image.getHeight(), equalTo(8 * 8));
+			Files.delete(page);
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+}
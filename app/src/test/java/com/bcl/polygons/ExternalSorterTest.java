@@ -0,0 +1,47 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class ExternalSorterTest {
+
+	@Test
+	public void sortsAcrossRuns() throws IOException {
+		final Board board = Board.square(4, 2);
+		final PolygonEnumerator enumerator = new PolygonEnumerator(board, 4, Mode.ALL_ORDERINGS);
+
+		final List<PolygonRecord> expected = Collections.synchronizedList(new ArrayList<>());
+		final List<PolygonRecord> sorted = new ArrayList<>();
+		try (ExternalSorter sorter = new ExternalSorter(50)) {
+			enumerator.visit(new ForkJoinPool(4), (vertices, count) -> {
+				final PolygonRecord record = PolygonRecord.of(board, vertices, count);
+				expected.add(record);
+				sorter.add(record);
+			});
+			sorter.forEachSorted(sorted::add);
+		}
+		expected.sort(PolygonRecord.comparator);
+
+		assertThat(sorted.size(), equalTo(363));
+		assertThat(sorted, equalTo(expected));
+
+		// the records hold the same polygons, in the same order, as sorting the
+		// polygons themselves
+		final List<Polygon> polygons = new ArrayList<>(enumerator.enumerate());
+		polygons.sort(PolygonOrder.comparator);
+		for (int i = 0; i < polygons.size(); i++) {
+			assertThat(sorted.get(i).toPolygon(board, 4), equalTo(polygons.get(i)));
+		}
+	}
+
+}
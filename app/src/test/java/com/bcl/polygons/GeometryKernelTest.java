@@ -0,0 +1,103 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GeometryKernelTest {
+
+	private static final int SIZE = 4;
+
+	private static List<Side> allSides() {
+		final List<Side> sides = new ArrayList<>();
+		for (int p1 = 0; p1 < SIZE * SIZE; p1++) {
+			for (int p2 = 0; p2 < SIZE * SIZE; p2++) {
+				if (p1 != p2) {
+					sides.add(new Side(new Point(p1 / SIZE, p1 % SIZE), new Point(p2 / SIZE, p2 % SIZE)));
+				}
+			}
+		}
+		return sides;
+	}
+
+	@Test
+	public void sidesMatch() {
+		final List<Side> sides = allSides();
+		for (final Side a : sides) {
+			final Point a1 = a.getStart();
+			final Point a2 = a.getEnd();
+			for (final Side b : sides) {
+				final Point b1 = b.getStart();
+				final Point b2 = b.getEnd();
+
+				assertThat(a + " " + b, GeometryKernel.intersects(a1.getRow(), a1.getColumn(), a2.getRow(),
+						a2.getColumn(), b1.getRow(), b1.getColumn(), b2.getRow(), b2.getColumn()),
+						equalTo(a.intersects(b)));
+				assertThat(a + " " + b, GeometryKernel.projectionContains(a1.getRow(), a1.getColumn(), a2.getRow(),
+						a2.getColumn(), b1.getRow(), b1.getColumn()), equalTo(a.projectionContains(b1)));
+				assertThat(a + " " + b, GeometryKernel.isParallel(a.getDirection().getRow(),
+						a.getDirection().getColumn(), b.getDirection().getRow(), b.getDirection().getColumn()),
+						equalTo(new AdjacentSides(a, b).isParallel()));
+			}
+		}
+	}
+
+	@Test
+	public void polygonsMatch() {
+		final Random random = new Random(1);
+		for (int trial = 0; trial < 20_000; trial++) {
+			final int n = 3 + random.nextInt(4);
+			final List<Point> vertices = new ArrayList<>();
+			final int[] rows = new int[n];
+			final int[] columns = new int[n];
+			for (int i = 0; i < n; i++) {
+				rows[i] = random.nextInt(SIZE);
+				columns[i] = random.nextInt(SIZE);
+				vertices.add(new Point(rows[i], columns[i]));
+			}
+			final Polygon polygon = new Polygon(vertices);
+
+			assertThat(polygon.toString(), GeometryKernel.isValid(rows, columns, n), equalTo(polygon.isValid()));
+			assertThat(GeometryKernel.twiceArea(rows, columns, n), equalTo(polygon.getTwiceArea()));
+			assertThat((long) GeometryKernel.countRightAngles(Lattice.SQUARE, rows, columns, n),
+					equalTo(polygon.countRightAngles()));
+			assertThat(GeometryKernel.countDistinctSides(Lattice.SQUARE, rows, columns, n),
+					equalTo(polygon.countDistinctSides()));
+		}
+	}
+
+	@Test
+	public void extensionsMatch() {
+		final Random random = new Random(2);
+		for (int trial = 0; trial < 20_000; trial++) {
+			// a path of distinct points, as the search builds
+			final List<Integer> indices = new ArrayList<>();
+			for (int p = 0; p < SIZE * SIZE; p++) {
+				indices.add(p);
+			}
+			Collections.shuffle(indices, random);
+
+			final int n = 3 + random.nextInt(4);
+			final int[] rows = new int[n];
+			final int[] columns = new int[n];
+			for (int i = 0; i < n; i++) {
+				rows[i] = indices.get(i) / SIZE;
+				columns[i] = indices.get(i) % SIZE;
+			}
+
+			// the prefixes are valid so far as the incremental check goes
+			boolean valid = true;
+			for (int k = 3; k <= n && valid; k++) {
+				valid = GeometryKernel.isValidExtension(rows, columns, k);
+				assertThat(valid, equalTo(GeometryKernel.isValid(rows, columns, k)));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+	@Test
+	public void matchesHashSet() {
+		for (final int width : new int[] { 1, 2 }) {
+			final LongHashSet set = new LongHashSet(width);
+			final Set<List<Long>> expected = new HashSet<>();
+			final Random random = new Random(width);
+			for (int i = 0; i < 200_000; i++) {
+				// few enough distinct keys that many are added twice, including zero
+				final long high = random.nextInt(50_000) * 0x9e3779b97f4a7c15L;
+				final long low = width == 2 ? random.nextInt(2) : 0;
+				assertThat(set.add(high, low), equalTo(expected.add(Arrays.asList(high, low))));
+			}
+			assertThat(set.size(), equalTo((long) expected.size()));
+		}
+	}
+
+}
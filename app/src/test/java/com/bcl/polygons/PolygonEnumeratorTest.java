@@ -0,0 +1,98 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class PolygonEnumeratorTest {
+
+	// a 4x4 grid with the middle 2x2 removed
+	private final Board ring = Board.square(4, 2);
+
+	@Test
+	public void parallelMatchesSerial() {
+		final PolygonEnumerator enumerator = new PolygonEnumerator(ring, 4);
+
+		final Set<Polygon> serial = enumerator.enumerateSerial();
+		final Set<Polygon> parallel = enumerator.enumerate(new ForkJoinPool(4));
+
+		assertThat(serial.size(), equalTo(363));
+		assertThat(parallel, equalTo(serial));
+	}
+
+	@Test
+	public void reportsProgress() {
+		final PolygonEnumerator enumerator = new PolygonEnumerator(ring, 4, Mode.CANONICAL);
+		final SearchProgress progress = new SearchProgress();
+		enumerator.visit(new ForkJoinPool(4), (vertices, count) -> {
+		}, progress);
+
+		assertThat(progress.getPolygonsFound(), equalTo(363L));
+		assertThat(progress.getSubtreesDone(), equalTo(progress.getSubtreesTotal()));
+		assertThat(progress.getEstimatedRemainingMillis(), equalTo(0L));
+
+		final SearchProgress cancelled = new SearchProgress();
+		cancelled.cancel();
+		enumerator.visit(new ForkJoinPool(4), (vertices, count) -> {
+		}, cancelled);
+		assertThat(cancelled.getPolygonsFound(), equalTo(0L));
+	}
+
+	@Test
+	public void sweepMatchesSeparateSearches() {
+		for (final Board board : new Board[] { ring, Board.square(3, 0), Board.triangle(4) }) {
+			for (final Mode mode : Mode.values()) {
+				final PolygonEnumerator sweep = new PolygonEnumerator(board, 3, 5, mode, null);
+				final SearchProgress progress = new SearchProgress();
+				final Set<Polygon> found = ConcurrentHashMap.newKeySet();
+				sweep.visit(new ForkJoinPool(4), (vertices, count) -> found.add(board.getPolygon(vertices, count)),
+						progress);
+
+				final Set<Polygon> expected = new HashSet<>();
+				for (int vertices = 3; vertices <= 5; vertices++) {
+					expected.addAll(new PolygonEnumerator(board, vertices, mode).enumerate());
+				}
+				assertThat(found, equalTo(expected));
+				if (mode != Mode.ALL_ORDERINGS) {
+					// each polygon is found once
+					assertThat(progress.getPolygonsFound(), equalTo((long) expected.size()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void canonicalMatchesAllOrderings() {
+		// the full 3x3 grid finds polygons that only some orderings accept, and the
+		// triangle is on the other lattice
+		for (final Board board : new Board[] { ring, Board.square(3, 0), Board.triangle(4) }) {
+			for (int vertices = 3; vertices <= 5; vertices++) {
+				final Set<Polygon> expected = new PolygonEnumerator(board, vertices).enumerate();
+				final Set<Polygon> canonical = new PolygonEnumerator(board, vertices, Mode.CANONICAL).enumerate();
+
+				assertThat(canonical, equalTo(expected));
+			}
+		}
+	}
+
+	@Test
+	public void orbitsExpandToCanonical() {
+		final PolygonEnumerator canonical = new PolygonEnumerator(ring, 4, Mode.CANONICAL);
+		final PolygonEnumerator orbits = new PolygonEnumerator(ring, 4, Mode.CANONICAL_ORBITS);
+
+		final Set<Polygon> representatives = orbits.enumerate();
+
+		assertThat(representatives.size(), lessThan(canonical.enumerate().size()));
+		assertThat(orbits.expandOrbits(representatives), equalTo(canonical.enumerate()));
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class PolygonFileTest {
+
+	@Test
+	public void readsWhatWasWritten() throws IOException {
+		final Board board = Board.square(4, 2);
+		final List<Polygon> polygons = new PolygonOrder(board)
+				.sort(new PolygonEnumerator(board, 4, Mode.CANONICAL).enumerate());
+
+		final Path path = Files.createTempFile("polygons", ".bin");
+		try {
+			try (PolygonFileWriter writer = new PolygonFileWriter(path, board, 4)) {
+				for (final Polygon polygon : polygons) {
+					writer.write(polygon);
+				}
+			}
+			assertThat(Files.size(path), equalTo(
+					new PolygonFile.Header(board, 4, 363).size() + 363L * PolygonFile.recordWidth(4)));
+
+			try (PolygonFileReader reader = new PolygonFileReader(path)) {
+				assertThat(reader.getBoard(), equalTo(board));
+				assertThat(reader.getVertices(), equalTo(4));
+				assertThat(reader.size(), equalTo(363L));
+				assertThat(reader.asList(), equalTo(polygons));
+				for (int i = 0; i < polygons.size(); i++) {
+					final Polygon polygon = polygons.get(i);
+					assertThat(reader.getTwiceArea(i), equalTo(polygon.getTwiceArea()));
+					assertThat((long) reader.getRightAngles(i), equalTo(polygon.countRightAngles()));
+					assertThat(reader.getDistinctSides(i), equalTo(polygon.countDistinctSides()));
+				}
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void rejectsPolygonsItCantHold() throws IOException {
+		final Board board = Board.square(4, 2);
+		final Board larger = Board.square(5, 0);
+		final Path path = Files.createTempFile("polygons", ".bin");
+		try (PolygonFileWriter writer = new PolygonFileWriter(path, board, 4)) {
+			assertRejected(() -> writer.write(new int[] { 0, 1, 2, -1 }, 2, 0, 1));
+			assertRejected(() -> writer.write(new int[] { 0, 1, 2, board.getPointCount() }, 2, 0, 1));
+			// off the board
+			assertRejected(() -> writer.write(larger.getPolygon(Arrays.asList(new Point(0, 0), new Point(0, 4),
+					new Point(4, 4), new Point(4, 0)))));
+			// too few vertices
+			assertRejected(() -> writer.write(
+					board.getPolygon(Arrays.asList(new Point(0, 0), new Point(0, 3), new Point(3, 0)))));
+			assertThat(writer.getCount(), equalTo(0L));
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	private interface Write {
+		void run() throws IOException;
+	}
+
+	private static void assertRejected(final Write write) throws IOException {
+		try {
+			write.run();
+			fail("expected IllegalArgumentException");
+		} catch (@SuppressWarnings("unused") final IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
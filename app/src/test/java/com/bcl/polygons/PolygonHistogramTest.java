@@ -0,0 +1,49 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class PolygonHistogramTest {
+
+	@Test
+	public void countsMatchEnumeratedPolygons() {
+		final Board board = Board.square(4, 2);
+		final PolygonEnumerator enumerator = new PolygonEnumerator(board, 4, Mode.CANONICAL);
+		final PolygonHistogram histogram = new PolygonHistogram(board, 4);
+		enumerator.visit(new ForkJoinPool(4), histogram);
+
+		// the same counts from the polygons themselves, in the same order
+		final Map<PolygonRecord, Long> expected = new TreeMap<>(PolygonRecord.comparator);
+		final List<PolygonRecord> records = new ArrayList<>();
+		enumerator.visit(new ForkJoinPool(4), (vertices, count) -> {
+			synchronized (records) {
+				records.add(PolygonRecord.of(board, vertices, count));
+			}
+		});
+		for (final PolygonRecord record : records) {
+			expected.merge(new PolygonRecord(0, record.getTwiceArea(), record.getRightAngles(),
+					record.getDistinctSides()), 1L, Long::sum);
+		}
+
+		assertThat(histogram.getTotal(), equalTo(363L));
+		final List<String> buckets = new ArrayList<>();
+		for (final PolygonHistogram.Bucket bucket : histogram.getBuckets()) {
+			buckets.add(bucket.toString());
+		}
+		final List<String> grouped = new ArrayList<>();
+		expected.forEach((record, count) -> grouped.add(String.format("%d\t%d\t%d\t%d", record.getTwiceArea(),
+				record.getRightAngles(), record.getDistinctSides(), count)));
+		assertThat(buckets, equalTo(grouped));
+	}
+
+}
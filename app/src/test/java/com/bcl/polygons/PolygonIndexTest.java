@@ -0,0 +1,111 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class PolygonIndexTest {
+
+	private final Board board = Board.square(4, 2);
+	private final List<Polygon> polygons = new PolygonOrder(board)
+			.sort(new PolygonEnumerator(board, 4, Mode.CANONICAL).enumerate());
+	private final PolygonIndex index = PolygonIndex.build(board, polygons);
+
+	private List<Polygon> scan(final Predicate<Polygon> condition) {
+		final List<Polygon> matches = new ArrayList<>();
+		for (final Polygon polygon : polygons) {
+			if (condition.test(polygon)) {
+				matches.add(polygon);
+			}
+		}
+		return matches;
+	}
+
+	private static boolean hasSide(final Polygon polygon, final Point point1, final Point point2) {
+		final List<Point> vertices = polygon.getVertices();
+		for (int i = 0; i < vertices.size(); i++) {
+			final Point from = vertices.get(i);
+			final Point to = vertices.get((i + 1) % vertices.size());
+			if (from.equals(point1) && to.equals(point2) || from.equals(point2) && to.equals(point1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void queriesMatchScan() {
+		assertThat(index.size(), equalTo(363));
+		assertThat(PolygonIndex.select(polygons, index.query().matches()), equalTo(polygons));
+
+		assertThat(PolygonIndex.select(polygons, index.query().twiceArea(4, 8).rightAngles(1, 2).matches()),
+				equalTo(scan(polygon -> polygon.getTwiceArea() >= 4 && polygon.getTwiceArea() <= 8
+						&& polygon.countRightAngles() >= 1 && polygon.countRightAngles() <= 2)));
+		assertThat(PolygonIndex.select(polygons, index.query().distinctSides(4, 4).matches()),
+				equalTo(scan(polygon -> polygon.countDistinctSides() == 4)));
+
+		final Point point = board.getPoint(5);
+		final List<Point> first = polygons.get(0).getVertices();
+		assertThat(PolygonIndex.select(polygons, index.query().vertex(point).matches()),
+				equalTo(scan(polygon -> polygon.getVertices().contains(point))));
+		assertThat(PolygonIndex.select(polygons, index.query().side(first.get(1), first.get(0)).vertex(point)
+				.matches()), equalTo(scan(polygon -> hasSide(polygon, first.get(0), first.get(1))
+						&& polygon.getVertices().contains(point))));
+		assertThat(index.query().vertex(new Point(-1, 0)).matches().isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void parsesQueries() {
+		final Point point = board.getPoint(5);
+		final Point other = board.getPoint(6);
+		final String text = String.format("twice-area=4- right-angles=-2  distinct-sides=3 vertex=%d,%d side=%d,%d-%d,%d",
+				point.getRow(), point.getColumn(), point.getRow(), point.getColumn(), other.getRow(),
+				other.getColumn());
+		assertThat(index.query(text).matches().toArray(), equalTo(index.query().twiceArea(4, Integer.MAX_VALUE)
+				.rightAngles(0, 2).distinctSides(3, 3).vertex(point).side(point, other).matches().toArray()));
+		assertThat(index.query(" ").matches().cardinality(), equalTo(363));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownCondition() {
+		index.query("perimeter=3");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBadRange() {
+		index.query("twice-area=x");
+	}
+
+	@Test
+	public void indexesFile() throws IOException {
+		final Path path = Files.createTempFile("polygons", ".bin");
+		try {
+			try (PolygonFileWriter writer = new PolygonFileWriter(path, board, 4)) {
+				for (final Polygon polygon : polygons) {
+					writer.write(polygon);
+				}
+			}
+			try (PolygonFileReader reader = new PolygonFileReader(path)) {
+				final PolygonIndex fileIndex = PolygonIndex.build(reader);
+				for (final String text : new String[] { "twice-area=2-6", "right-angles=2 distinct-sides=2-3",
+						"vertex=1,1", "side=0,1-1,1" }) {
+					assertThat(text, fileIndex.query(text).matches().toArray(),
+							equalTo(index.query(text).matches().toArray()));
+				}
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class PolygonOrderTest {
+
+	@Test
+	public void lazyOrderMatchesSortedDrain() {
+		final Board board = Board.square(5, 1);
+		final Set<Polygon> polygons = new PolygonEnumerator(board, 4, Mode.CANONICAL).enumerate();
+
+		// every polygon in a sorted set, taking the first, then each rotation of it
+		// that is there
+		final SortedSet<Polygon> remaining = new TreeSet<>(PolygonOrder.comparator);
+		for (final Polygon polygon : polygons) {
+			remaining.add(new Polygon(polygon.getCanonicalVertices()));
+		}
+		final Symmetry rotate90 = board.getSymmetries().get(1);
+		assertThat(rotate90.getName(), equalTo("rotate 90"));
+		final List<Polygon> expected = new ArrayList<>();
+		while (!remaining.isEmpty()) {
+			Polygon polygon = remaining.first();
+			while (remaining.remove(polygon)) {
+				expected.add(polygon);
+				polygon = new Polygon(rotate90.apply(polygon).getCanonicalVertices());
+			}
+		}
+
+		final List<Polygon> ordered = new PolygonOrder(board).order(polygons);
+		assertThat(ordered.size(), equalTo(expected.size()));
+		// read the first one before the rest
+		assertThat(ordered.get(0).getVertices(), equalTo(expected.get(0).getVertices()));
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(ordered.get(i).getVertices(), equalTo(expected.get(i).getVertices()));
+		}
+	}
+
+}
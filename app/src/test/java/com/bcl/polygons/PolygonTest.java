@@ -3,7 +3,11 @@ package com.bcl.polygons;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -45,6 +49,31 @@ public class PolygonTest {
 
 	}
 
+	@Test
+	public void equalsMatchesSideSets() {
+		// including degenerate polygons with repeated vertices, whose sides repeat
+		final Random random = new Random(1);
+		final List<Polygon> polygons = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			final List<Point> vertices = new ArrayList<>();
+			final int count = 2 + random.nextInt(4);
+			for (int j = 0; j < count; j++) {
+				vertices.add(new Point(random.nextInt(3), random.nextInt(3)));
+			}
+			polygons.add(new Polygon(vertices));
+		}
+
+		for (final Polygon polygon1 : polygons) {
+			for (final Polygon polygon2 : polygons) {
+				final boolean sameSides = new HashSet<>(polygon1.getSides()).equals(new HashSet<>(polygon2.getSides()));
+				assertThat(polygon1.equals(polygon2), equalTo(sameSides));
+				if (sameSides) {
+					assertThat(polygon1.hashCode(), equalTo(polygon2.hashCode()));
+				}
+			}
+		}
+	}
+
 	@Test
 	public void projectionContents() {
 
@@ -0,0 +1,75 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class SearchCheckpointTest {
+
+	private final Board board = Board.square(4, 2);
+
+	@Test
+	public void resumedSearchFindsTheSamePolygons() throws IOException, InterruptedException {
+		final PolygonEnumerator enumerator = new PolygonEnumerator(board, 4, Mode.CANONICAL);
+		final Path path = Files.createTempFile("checkpoint", ".bin");
+		Files.delete(path);
+		try {
+			// stopped part way through, saving after every subtree
+			final SearchCheckpoint stopped = SearchCheckpoint.open(path, enumerator, 0);
+			final SearchProgress progress = new SearchProgress();
+			enumerator.visit(new ForkJoinPool(1), (vertices, count) -> {
+				if (progress.getPolygonsFound() >= 100) {
+					progress.cancel();
+				}
+			}, progress, stopped);
+			final int finished = stopped.getSubtreesFinished();
+			assertThat(finished, greaterThan(0));
+
+			// saved in the background as it went, so perhaps not the last few subtrees
+			stopped.awaitSaving();
+			final SearchCheckpoint saved = SearchCheckpoint.open(path, enumerator, 60_000);
+			assertThat(saved.getSubtreesResumed(), greaterThan(0));
+			assertThat(saved.getSubtreesResumed(), lessThanOrEqualTo(finished));
+
+			stopped.save();
+			final SearchCheckpoint resumed = SearchCheckpoint.open(path, enumerator, 60_000);
+			assertThat(resumed.getSubtreesResumed(), equalTo(finished));
+			final Set<Polygon> polygons = ConcurrentHashMap.newKeySet();
+			final SearchProgress resumedProgress = new SearchProgress();
+			enumerator.visit(new ForkJoinPool(4), (vertices, count) -> polygons.add(board.getPolygon(vertices, count)),
+					resumedProgress, resumed);
+
+			assertThat(polygons, equalTo(enumerator.enumerate()));
+			assertThat(resumedProgress.getPolygonsFound(), equalTo(363L));
+			assertThat(finished, lessThan(resumed.getSubtreesFinished()));
+			assertThat(resumedProgress.getSubtreesDone(), equalTo(resumedProgress.getSubtreesTotal()));
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsADifferentSearch() throws IOException {
+		final Path path = Files.createTempFile("checkpoint", ".bin");
+		try {
+			SearchCheckpoint.open(path, new PolygonEnumerator(board, 4, Mode.CANONICAL), 0).save();
+			SearchCheckpoint.open(path, new PolygonEnumerator(board, 5, Mode.CANONICAL), 0);
+		} finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+}
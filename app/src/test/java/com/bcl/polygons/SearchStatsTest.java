@@ -0,0 +1,48 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+import com.bcl.polygons.SearchStats.Rejection;
+
+public class SearchStatsTest {
+
+	@Test
+	public void countsWhatItIsTold() {
+		// the counters are counted directly, as the tests don't run with them enabled
+		final SearchStats stats = SearchStats.get();
+		stats.reset();
+
+		SearchStats.nodeVisited();
+		SearchStats.checked(null);
+		SearchStats.checked(Rejection.PARALLEL_SIDES);
+		SearchStats.checked(Rejection.NOT_FOUND_BY_SEARCH);
+		SearchStats.candidatesPruned(2, 5);
+		SearchStats.candidatesPruned(100, 1);
+		for (int i = 0; i < 3; i++) {
+			SearchStats.memoLookup(true);
+		}
+		SearchStats.memoLookup(false);
+		SearchStats.dedupHit();
+		SearchStats.polygonFound();
+
+		assertThat(stats.getNodesVisited(), equalTo(1L));
+		assertThat(stats.getValidityChecks(), equalTo(3L));
+		assertThat(stats.getParallelSidesRejections(), equalTo(1L));
+		assertThat(stats.getMeetingSidesRejections(), equalTo(0L));
+		assertThat(stats.getNotFoundBySearchRejections(), equalTo(1L));
+		final long[] pruned = stats.getCandidatesPrunedByDepth();
+		assertThat(pruned[2], equalTo(5L));
+		// deeper than is counted separately
+		assertThat(pruned[pruned.length - 1], equalTo(1L));
+		assertThat(stats.getMemoHitRatio(), equalTo(0.75));
+		assertThat(stats.getDedupHits(), equalTo(1L));
+		assertThat(stats.getPolygonsFound(), equalTo(1L));
+
+		stats.reset();
+		assertThat(stats.getValidityChecks(), equalTo(0L));
+	}
+
+}
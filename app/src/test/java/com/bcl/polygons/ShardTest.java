@@ -0,0 +1,62 @@
+package com.bcl.polygons;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.bcl.polygons.PolygonEnumerator.Mode;
+
+public class ShardTest {
+
+	private final Board board = Board.square(4, 2);
+
+	@Test
+	public void shardsTogetherFindEveryPolygon() {
+		for (final Mode mode : Mode.values()) {
+			final Set<Polygon> expected = new PolygonEnumerator(board, 4, mode).enumerate();
+
+			final Set<Polygon> merged = new HashSet<>();
+			int found = 0;
+			for (int i = 0; i < 3; i++) {
+				final Set<Polygon> shard = new PolygonEnumerator(board, 4, mode, new Shard(i, 3)).enumerate();
+				merged.addAll(shard);
+				found += shard.size();
+			}
+
+			assertThat(merged, equalTo(expected));
+			if (mode != Mode.ALL_ORDERINGS) {
+				// each polygon is in just one shard
+				assertThat(found, equalTo(expected.size()));
+			}
+		}
+	}
+
+	@Test
+	public void parsesFromOne() {
+		final Shard shard = Shard.parse("2/5");
+
+		assertThat(shard.getIndex(), equalTo(1));
+		assertThat(shard.getCount(), equalTo(5));
+		assertThat(shard.toString(), equalTo("2/5"));
+	}
+
+	@Test
+	public void passesOnlyPerProcessJvmArguments() {
+		assertThat(BatchMain.shardJvmArguments(Arrays.asList("-Xmx8g", "-Xms1g", "-XX:+UseParallelGC",
+				"-Dpolygons.stats=true", "-ea", "-agentlib:jdwp=transport=dt_socket,server=y,address=5005",
+				"-javaagent:agent.jar", "-XX:StartFlightRecording=filename=x.jfr", "-Xlog:gc:file=gc.log",
+				"-XX:HeapDumpPath=heap.hprof", "-Dcom.sun.management.jmxremote.port=9010", "-Xdebug")),
+				equalTo(Arrays.asList("-Xmx8g", "-Xms1g", "-XX:+UseParallelGC", "-Dpolygons.stats=true", "-ea")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsShardsOutOfRange() {
+		Shard.parse("6/5");
+	}
+
+}